@@ -71,10 +71,10 @@ public class MainActivity extends AppCompatActivity {
         getMenuInflater().inflate(R.menu.main, menu);
         menu.findItem(R.id.action_info).setIcon(
                 new PrintDrawable.Builder(this)
-                        .iconCodeRes(R.integer.ic_ss_standard_like)
+                        .iconCode(SsStandardIcons.LIKE)
                         .iconColorRes(R.color.ab_icon_color)
                         .iconSizeRes(R.dimen.ab_icon_size)
-                        .iconFont("fonts/ss-standard.otf")
+                        .iconFont("ss")
                         .build()
         );
         return true;
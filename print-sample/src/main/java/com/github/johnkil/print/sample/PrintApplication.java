@@ -25,7 +25,16 @@ public class PrintApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
-        PrintConfig.initDefault(getAssets(), "fonts/material-icon-font.ttf");
+        PrintConfig.initDefaultAsync(getAssets(), "fonts/material-icon-font.ttf");
+        PrintConfig.register("ss", "fonts/ss-standard.otf");
+        // large icons of the size sample are drawn faster as text
+        PrintConfig.setTextDrawSize((int) (128 * getResources().getDisplayMetrics().density));
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        PrintConfig.onTrimMemory(level);
     }
 
 }
\ No newline at end of file
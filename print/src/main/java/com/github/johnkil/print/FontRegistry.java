@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+
+import java.util.HashMap;
+
+/**
+ * The iconic fonts registered under short aliases. Each font gets an integer id,
+ * so resolving the font of an icon is an array lookup.
+ */
+class FontRegistry {
+
+    /**
+     * The id of an unspecified font.
+     */
+    static final int NO_ID = -1;
+
+    /**
+     * The font ids, by alias.
+     */
+    private static final HashMap<String, Integer> sIds = new HashMap<>();
+
+    /**
+     * The registered fonts, by id. Replaced on each registration, so it can be read without locking.
+     */
+    private static volatile Entry[] sEntries = new Entry[0];
+
+    /**
+     * Register the font under the alias, replacing a font previously registered under it.
+     *
+     * @param alias The alias of the font, e.g. "ss".
+     * @param path  The file name of the font in the assets directory.
+     * @return the id of the font.
+     */
+    static int register(String alias, String path) {
+        if (alias == null || path == null) {
+            throw new IllegalArgumentException("Alias and path must not be null.");
+        }
+        return register(alias, new Entry(path, null));
+    }
+
+    /**
+     * Register the font loaded from the source under the alias, replacing a font previously
+     * registered under it.
+     *
+     * @return the id of the font.
+     */
+    static int register(String alias, TypefaceManager.Source source) {
+        if (alias == null) {
+            throw new IllegalArgumentException("Alias must not be null.");
+        }
+        return register(alias, new Entry(source.key, source));
+    }
+
+    private static int register(String alias, Entry entry) {
+        synchronized (sIds) {
+            Entry[] entries = sEntries;
+            Integer id = sIds.get(alias);
+            if (id == null) {
+                id = entries.length;
+                sIds.put(alias, id);
+            }
+            Entry[] newEntries = new Entry[Math.max(entries.length, id + 1)];
+            System.arraycopy(entries, 0, newEntries, 0, entries.length);
+            newEntries[id] = entry;
+            sEntries = newEntries;
+            return id;
+        }
+    }
+
+    /**
+     * Return the id of the font registered under the alias, or {@link #NO_ID} if there is none.
+     */
+    static int getId(String alias) {
+        synchronized (sIds) {
+            Integer id = sIds.get(alias);
+            return id != null ? id : NO_ID;
+        }
+    }
+
+    /**
+     * Return the id of the font registered under the alias. An unknown alias is taken
+     * as the file name of the font in the assets directory and registered under itself.
+     */
+    static int obtainId(String aliasOrPath) {
+        synchronized (sIds) {
+            int id = getId(aliasOrPath);
+            return id != NO_ID ? id : register(aliasOrPath, aliasOrPath);
+        }
+    }
+
+    /**
+     * Load the font with the given id.
+     *
+     * @param assets The application's asset manager.
+     * @param id     The id of the font.
+     */
+    static Typeface load(AssetManager assets, int id) {
+        Entry entry = getEntry(id);
+        Typeface typeface = entry.typeface;
+        if (typeface == null) {
+            typeface = entry.source != null
+                    ? TypefaceManager.load(entry.source)
+                    : TypefaceManager.load(assets, entry.path);
+            entry.typeface = typeface;
+        }
+        return typeface;
+    }
+
+    /**
+     * Return the glyphs of the font exported at build time, or null if there are none.
+     *
+     * @param assets The application's asset manager.
+     * @param id     The id of the font.
+     */
+    static GlyphPack.Font getPackedGlyphs(AssetManager assets, int id) {
+        return GlyphPack.get(assets, getEntry(id).path);
+    }
+
+    /**
+     * Throw an {@link IllegalArgumentException} if no font is registered under the id.
+     */
+    static void checkId(int id) {
+        getEntry(id);
+    }
+
+    private static Entry getEntry(int id) {
+        Entry[] entries = sEntries;
+        if (id < 0 || id >= entries.length) {
+            throw new IllegalArgumentException("Unknown font id: " + id);
+        }
+        return entries[id];
+    }
+
+    private FontRegistry() {
+    }
+
+    private static final class Entry {
+        /**
+         * The path of the font in assets, or the key of the source.
+         */
+        final String path;
+        final TypefaceManager.Source source;
+        volatile Typeface typeface;
+
+        Entry(String path, TypefaceManager.Source source) {
+            this.path = path;
+            this.source = source;
+        }
+    }
+
+}
\ No newline at end of file
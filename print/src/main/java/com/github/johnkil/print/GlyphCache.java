@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A process-wide LRU cache of glyph outlines shared by all {@link PrintDrawable} instances.
+ * Outlines are keyed by font, icon text and size (in pixels) and must not be modified by callers.
+ */
+class GlyphCache {
+
+    /**
+     * The default maximum number of cached glyphs.
+     */
+    static final int DEFAULT_MAX_SIZE = 256;
+
+    private static final Paint sPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
+    private static final RectF sBounds = new RectF();
+
+    /**
+     * The key used for lookups, so that a cache hit allocates nothing.
+     */
+    private static final Key sLookupKey = new Key();
+
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+    private static int sHitCount;
+    private static int sMissCount;
+
+    /**
+     * The cached glyphs, in access order.
+     */
+    private static final LinkedHashMap<Key, Glyph> sGlyphs = new LinkedHashMap<Key, Glyph>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Glyph> eldest) {
+            return size() > sMaxSize;
+        }
+    };
+
+    /**
+     * Return the outline of the text rendered with the given font and size,
+     * building and caching it if necessary.
+     *
+     * @param font   The iconic font, or null to use the default typeface.
+     * @param text   The chars of the icon text.
+     * @param length The length of the icon text.
+     * @param size   The icon size (in pixels).
+     */
+    static synchronized Glyph get(Typeface font, char[] text, int length, int size) {
+        Glyph glyph = lookup(font, text, length, size);
+        if (glyph == null) {
+            long start = System.nanoTime();
+            sPaint.setTypeface(font);
+            sPaint.setTextSize(size);
+            Path path = new Path();
+            sPaint.getTextPath(text, 0, length, 0, 0, path);
+            glyph = put(font, text, length, size, path, start);
+        }
+        return glyph;
+    }
+
+    /**
+     * Return the outline of a glyph exported at build time, building and caching it if necessary.
+     *
+     * @param font   The packed glyphs of the iconic font.
+     * @param code   The icon code.
+     * @param text   The chars of the icon code.
+     * @param length The length of the icon code chars.
+     * @param size   The icon size (in pixels).
+     */
+    static synchronized Glyph get(GlyphPack.Font font, int code, char[] text, int length, int size) {
+        Glyph glyph = lookup(font, text, length, size);
+        if (glyph == null) {
+            long start = System.nanoTime();
+            Path path = new Path();
+            font.getPath(code, size, path);
+            glyph = put(font, text, length, size, path, start);
+        }
+        return glyph;
+    }
+
+    private static Glyph lookup(Object font, char[] text, int length, int size) {
+        sLookupKey.set(font, text, length, size);
+        Glyph glyph = sGlyphs.get(sLookupKey);
+        if (glyph != null) {
+            sHitCount++;
+            PrintMetrics metrics = PrintConfig.getMetrics();
+            if (metrics != null) {
+                metrics.onGlyphCacheHit();
+            }
+        } else {
+            sMissCount++;
+        }
+        return glyph;
+    }
+
+    /**
+     * Cache the glyph built from the path.
+     *
+     * @param start The time the build started at, in nanoseconds.
+     */
+    private static Glyph put(Object font, char[] text, int length, int size, Path path, long start) {
+        path.computeBounds(sBounds, true);
+        path.offset(-sBounds.left, -sBounds.top);
+        path.close();
+
+        Glyph glyph = new Glyph(path, sBounds.width(), sBounds.height());
+        char[] chars = new char[length];
+        System.arraycopy(text, 0, chars, 0, length);
+        Key key = new Key();
+        key.set(font, chars, length, size);
+        sGlyphs.put(key, glyph);
+
+        PrintMetrics metrics = PrintConfig.getMetrics();
+        if (metrics != null) {
+            metrics.onPathBuild(System.nanoTime() - start);
+        }
+        return glyph;
+    }
+
+    /**
+     * Set the maximum number of cached glyphs, evicting the least recently used ones if needed.
+     */
+    static synchronized void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        sMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Evict the least recently used glyphs until the cache holds at most {@code size} entries.
+     */
+    static synchronized void trimToSize(int size) {
+        while (sGlyphs.size() > size) {
+            Key eldest = sGlyphs.keySet().iterator().next();
+            sGlyphs.remove(eldest);
+        }
+    }
+
+    static synchronized int hitCount() {
+        return sHitCount;
+    }
+
+    static synchronized int missCount() {
+        return sMissCount;
+    }
+
+    private GlyphCache() {
+    }
+
+    /**
+     * An immutable glyph outline, translated so that its bounds start at the origin.
+     */
+    static final class Glyph {
+        final Path path;
+        final float width;
+        final float height;
+
+        Glyph(Path path, float width, float height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static final class Key {
+        /**
+         * The typeface, or the packed glyphs of a font.
+         */
+        private Object mFont;
+        private char[] mText;
+        private int mLength;
+        private int mSize;
+        private int mHashCode;
+
+        void set(Object font, char[] text, int length, int size) {
+            mFont = font;
+            mText = text;
+            mLength = length;
+            mSize = size;
+
+            int result = font != null ? font.hashCode() : 0;
+            for (int i = 0; i < length; i++) {
+                result = 31 * result + text[i];
+            }
+            mHashCode = 31 * result + size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            if (mSize != key.mSize || mLength != key.mLength
+                    || !(mFont == null ? key.mFont == null : mFont.equals(key.mFont))) {
+                return false;
+            }
+            for (int i = 0; i < mLength; i++) {
+                if (mText[i] != key.mText[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+
+}
\ No newline at end of file
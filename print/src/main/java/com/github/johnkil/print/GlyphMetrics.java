@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+
+/**
+ * The bounds of glyphs by font and code, normalized to a text size of 1, so that the bounds
+ * of a glyph at any size are a multiplication away. Bounds are measured once per glyph,
+ * on first use, and must not be modified by callers.
+ */
+class GlyphMetrics {
+
+    /**
+     * The text size glyphs are measured at.
+     */
+    private static final float MEASURE_SIZE = 1000f;
+
+    private static final Paint sPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
+    private static final Path sPath = new Path();
+    private static final RectF sBounds = new RectF();
+    private static final char[] sChars = new char[2];
+
+    /**
+     * The normalized glyph bounds, by font and code.
+     */
+    private static final HashMap<Typeface, SparseArray<float[]>> sMetrics = new HashMap<>();
+
+    /**
+     * Return the bounds of the glyph relative to its origin on the baseline,
+     * as {left, top, right, bottom} at a text size of 1.
+     *
+     * @param font The iconic font, or null for the default typeface.
+     * @param code The code of the glyph.
+     */
+    static synchronized float[] get(Typeface font, int code) {
+        SparseArray<float[]> metrics = sMetrics.get(font);
+        if (metrics == null) {
+            metrics = new SparseArray<>();
+            sMetrics.put(font, metrics);
+        }
+        float[] bounds = metrics.get(code);
+        if (bounds == null) {
+            bounds = measure(font, code);
+            metrics.put(code, bounds);
+        }
+        return bounds;
+    }
+
+    private static float[] measure(Typeface font, int code) {
+        sPaint.setTypeface(font);
+        sPaint.setTextSize(MEASURE_SIZE);
+        int length = Character.toChars(code, sChars, 0);
+        sPath.reset();
+        sPaint.getTextPath(sChars, 0, length, 0, 0, sPath);
+        sPath.computeBounds(sBounds, true);
+        return new float[]{
+                sBounds.left / MEASURE_SIZE,
+                sBounds.top / MEASURE_SIZE,
+                sBounds.right / MEASURE_SIZE,
+                sBounds.bottom / MEASURE_SIZE
+        };
+    }
+
+    /**
+     * Drop the bounds of all glyphs.
+     */
+    static synchronized void clear() {
+        sMetrics.clear();
+    }
+
+    private GlyphMetrics() {
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.content.res.AssetManager;
+import android.graphics.Path;
+import android.util.Log;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Glyph outlines exported at build time by the {@code glyphs.gradle} script, so that icons
+ * can be drawn without creating a typeface. The outlines of all fonts are packed into the
+ * {@value #ASSET_NAME} asset, which is read at once on first use.
+ * <p/>
+ * Format (big-endian): the magic number and the version, the number of fonts and for each font
+ * its path in the assets directory (modified UTF-8), the number of glyphs and for each glyph
+ * its codepoint, the number of path operations, the operations (one byte each) and their
+ * coordinates in em units.
+ */
+class GlyphPack {
+
+    static final String ASSET_NAME = "print-glyphs.bin";
+
+    private static final int MAGIC = 0x5052474c; // PRGL
+    private static final int VERSION = 1;
+
+    private static final byte OP_MOVE = 0;
+    private static final byte OP_LINE = 1;
+    private static final byte OP_QUAD = 2;
+    private static final byte OP_CUBIC = 3;
+    private static final byte OP_CLOSE = 4;
+
+    /**
+     * The packed glyphs by font path, or null until the pack is read.
+     */
+    private static HashMap<String, Font> sFonts;
+
+    /**
+     * Return the packed glyphs of the font, or null if the font has no packed glyphs.
+     *
+     * @param assets The application's asset manager.
+     * @param path   The file name of the font in the assets directory.
+     */
+    static Font get(AssetManager assets, String path) {
+        synchronized (GlyphPack.class) {
+            if (sFonts == null) {
+                sFonts = read(assets);
+            }
+            return sFonts.get(path);
+        }
+    }
+
+    private static HashMap<String, Font> read(AssetManager assets) {
+        HashMap<String, Font> fonts = new HashMap<>();
+        byte[] data;
+        try {
+            data = readAsset(assets);
+        } catch (FileNotFoundException e) {
+            // no glyphs were exported
+            return fonts;
+        } catch (IOException e) {
+            Log.e("Print", "Unable to read " + ASSET_NAME, e);
+            return fonts;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            Log.e("Print", "Unsupported format of " + ASSET_NAME);
+            return fonts;
+        }
+        int fontCount = buffer.getInt();
+        for (int i = 0; i < fontCount; i++) {
+            String path = readUtf(buffer);
+            int glyphCount = buffer.getInt();
+            int[] codes = new int[glyphCount];
+            int[] offsets = new int[glyphCount];
+            for (int j = 0; j < glyphCount; j++) {
+                codes[j] = buffer.getInt();
+                offsets[j] = buffer.position();
+                int opCount = buffer.getInt();
+                int coordCount = 0;
+                for (int k = 0; k < opCount; k++) {
+                    coordCount += coordCount(buffer.get());
+                }
+                buffer.position(buffer.position() + coordCount * 4);
+            }
+            fonts.put(path, new Font(buffer, codes, offsets));
+        }
+        return fonts;
+    }
+
+    private static byte[] readAsset(AssetManager assets) throws IOException {
+        InputStream in = assets.open(ASSET_NAME);
+        try {
+            byte[] data = new byte[Math.max(in.available(), 4096)];
+            int length = 0;
+            int count;
+            while ((count = in.read(data, length, data.length - length)) != -1) {
+                length += count;
+                if (length == data.length) {
+                    byte[] newData = new byte[data.length * 2];
+                    System.arraycopy(data, 0, newData, 0, length);
+                    data = newData;
+                }
+            }
+            byte[] result = new byte[length];
+            System.arraycopy(data, 0, result, 0, length);
+            return result;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int coordCount(byte op) {
+        switch (op) {
+            case OP_MOVE:
+            case OP_LINE:
+                return 2;
+            case OP_QUAD:
+                return 4;
+            case OP_CUBIC:
+                return 6;
+            case OP_CLOSE:
+                return 0;
+            default:
+                throw new IllegalStateException("Unknown path operation: " + op);
+        }
+    }
+
+    private GlyphPack() {
+    }
+
+    /**
+     * The packed glyphs of one font.
+     */
+    static final class Font {
+        private final ByteBuffer mData;
+        private final int[] mCodes;
+        private final int[] mOffsets;
+
+        Font(ByteBuffer data, int[] codes, int[] offsets) {
+            mData = data;
+            mCodes = codes;
+            mOffsets = offsets;
+        }
+
+        /**
+         * Return true if the glyph of the codepoint is packed.
+         */
+        boolean contains(int code) {
+            return indexOf(code) >= 0;
+        }
+
+        /**
+         * Build the outline of the glyph, as {@link android.graphics.Paint#getTextPath} would
+         * with the origin on the baseline.
+         *
+         * @param code The codepoint of the glyph.
+         * @param size The text size (in pixels).
+         * @param path The path receiving the outline.
+         */
+        void getPath(int code, float size, Path path) {
+            int index = indexOf(code);
+            if (index < 0) {
+                throw new IllegalArgumentException("The glyph is not packed: " + code);
+            }
+            synchronized (mData) {
+                int opPosition = mOffsets[index];
+                int opCount = mData.getInt(opPosition);
+                opPosition += 4;
+                int coordPosition = opPosition + opCount;
+                for (int i = 0; i < opCount; i++) {
+                    byte op = mData.get(opPosition + i);
+                    switch (op) {
+                        case OP_MOVE:
+                            path.moveTo(coord(coordPosition, 0, size), coord(coordPosition, 1, size));
+                            break;
+                        case OP_LINE:
+                            path.lineTo(coord(coordPosition, 0, size), coord(coordPosition, 1, size));
+                            break;
+                        case OP_QUAD:
+                            path.quadTo(coord(coordPosition, 0, size), coord(coordPosition, 1, size),
+                                    coord(coordPosition, 2, size), coord(coordPosition, 3, size));
+                            break;
+                        case OP_CUBIC:
+                            path.cubicTo(coord(coordPosition, 0, size), coord(coordPosition, 1, size),
+                                    coord(coordPosition, 2, size), coord(coordPosition, 3, size),
+                                    coord(coordPosition, 4, size), coord(coordPosition, 5, size));
+                            break;
+                        case OP_CLOSE:
+                            path.close();
+                            break;
+                    }
+                    coordPosition += coordCount(op) * 4;
+                }
+            }
+        }
+
+        private float coord(int position, int index, float size) {
+            return mData.getFloat(position + index * 4) * size;
+        }
+
+        private int indexOf(int code) {
+            // codes are sorted by the export
+            int low = 0;
+            int high = mCodes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midCode = mCodes[mid];
+                if (midCode < code) {
+                    low = mid + 1;
+                } else if (midCode > code) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
\ No newline at end of file
@@ -146,12 +146,24 @@ interface IPrint {
     /**
      * Sets the iconic font from assets.
      *
-     * @param path The file name of the font in the assets directory, e.g. "fonts/iconic-font.ttf".
+     * @param path The file name of the font in the assets directory, e.g. "fonts/iconic-font.ttf",
+     *             or the alias of a font registered in {@link PrintConfig}.
+     * @see #setIconFontId(int)
      * @see #setIconFont(Typeface)
      * @see #getIconFont()
      */
     void setIconFont(String path);
 
+    /**
+     * Sets the iconic font registered in {@link PrintConfig}.
+     *
+     * @param id The id of the font returned by {@link PrintConfig#register(String, String)}.
+     * @throws IllegalArgumentException if no font is registered under the id.
+     * @see #setIconFont(String)
+     * @see #getIconFont()
+     */
+    void setIconFontId(int id);
+
     /**
      * Sets the iconic font.
      *
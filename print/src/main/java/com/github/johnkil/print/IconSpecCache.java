@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable.ConstantState;
+import android.util.AttributeSet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The icons inflated from layouts, so that views inflated again with the same attributes,
+ * e.g. list rows, reuse the icon state instead of parsing the attributes and building the glyph.
+ * <p/>
+ * Icons are cached by theme, and by the style and raw values of the print attributes of the view,
+ * which resolve to the same icon as long as the theme and the configuration do not change.
+ */
+class IconSpecCache {
+
+    /**
+     * The maximum number of icons cached for each theme.
+     */
+    static final int MAX_SIZE = 64;
+
+    /**
+     * The cached icons, by theme.
+     */
+    private static final WeakHashMap<Resources.Theme, Specs> sSpecs = new WeakHashMap<>();
+
+    /**
+     * Build the key of the icon inflated from the attributes.
+     */
+    static String key(AttributeSet attrs) {
+        int[] printAttrs = R.styleable.PrintView;
+        StringBuilder key = new StringBuilder();
+        key.append(attrs.getStyleAttribute());
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            int nameRes = attrs.getAttributeNameResource(i);
+            for (int j = 0; j < printAttrs.length; j++) {
+                if (printAttrs[j] == nameRes) {
+                    key.append('|').append(j).append('=').append(attrs.getAttributeValue(i));
+                    break;
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Create the icon cached under the key, or return null if there is none.
+     */
+    static PrintDrawable get(Context context, String key) {
+        ConstantState state;
+        synchronized (sSpecs) {
+            Specs specs = sSpecs.get(context.getTheme());
+            if (specs == null || !specs.isValid(context.getResources().getConfiguration())) {
+                return null;
+            }
+            state = specs.get(key);
+        }
+        return state != null ? PrintDrawable.fromState(state, context) : null;
+    }
+
+    /**
+     * Cache the icon inflated from the attributes with the given key.
+     */
+    static void put(Context context, String key, PrintDrawable icon) {
+        // The cached state must not hold the context, which holds the theme.
+        ConstantState state = icon.newState(context.getApplicationContext());
+        synchronized (sSpecs) {
+            Resources.Theme theme = context.getTheme();
+            Configuration config = context.getResources().getConfiguration();
+            Specs specs = sSpecs.get(theme);
+            if (specs == null || !specs.isValid(config)) {
+                specs = new Specs(config);
+                sSpecs.put(theme, specs);
+            }
+            specs.put(key, state);
+        }
+    }
+
+    /**
+     * Drop all cached icons.
+     */
+    static void clear() {
+        synchronized (sSpecs) {
+            sSpecs.clear();
+        }
+    }
+
+    private IconSpecCache() {
+    }
+
+    /**
+     * The icons cached for a theme, in access order.
+     */
+    private static final class Specs extends LinkedHashMap<String, ConstantState> {
+        private final Configuration mConfig;
+
+        Specs(Configuration config) {
+            super(16, 0.75f, true);
+            mConfig = new Configuration(config);
+        }
+
+        /**
+         * @return true if the icons were inflated with the given configuration.
+         */
+        boolean isValid(Configuration config) {
+            return mConfig.equals(config);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ConstantState> eldest) {
+            return size() > MAX_SIZE;
+        }
+    }
+
+}
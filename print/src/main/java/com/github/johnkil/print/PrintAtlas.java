@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Alpha bitmaps shared by all rasterized icons. Glyphs of the same font and size are packed
+ * into a few pages, so icon-heavy screens do not allocate a bitmap per drawable.
+ * <p/>
+ * Pages start small and grow with the number of glyphs of a strike. The pages of all strikes
+ * are kept within {@link #MAX_BYTES}, evicting the least recently used strikes.
+ */
+class PrintAtlas {
+
+    /**
+     * The maximum size (in pixels) of an atlas page. Larger glyphs get a page of their own.
+     */
+    static final int PAGE_SIZE = 512;
+
+    /**
+     * The size (in pixels) of the first page of a strike. Each new page of the strike
+     * doubles it, up to {@link #PAGE_SIZE}.
+     */
+    static final int MIN_PAGE_SIZE = 64;
+
+    /**
+     * The maximum number of bytes of all atlas pages.
+     */
+    static final int MAX_BYTES = 4 * PAGE_SIZE * PAGE_SIZE;
+
+    /**
+     * Padding between packed glyphs, avoids bleeding of neighbour glyphs.
+     */
+    private static final int PADDING = 1;
+
+    private static final Paint sPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /**
+     * The atlas strikes, by font and size, in access order.
+     */
+    private static final LinkedHashMap<StrikeKey, Strike> sStrikes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of bytes of all atlas pages.
+     */
+    private static int sByteCount;
+
+    /**
+     * Return the atlas region of the icon text, rasterizing its glyph into the atlas if necessary.
+     *
+     * @param font   The iconic font, or null for the default typeface.
+     * @param size   The icon size (in pixels).
+     * @param text   The chars of the icon text.
+     * @param length The length of the icon text.
+     * @param glyph  The outline of the icon text.
+     */
+    static synchronized Region get(Typeface font, int size, char[] text, int length, GlyphCache.Glyph glyph) {
+        StrikeKey key = new StrikeKey(font, size);
+        Strike strike = sStrikes.get(key);
+        if (strike == null) {
+            strike = new Strike();
+            sStrikes.put(key, strike);
+        }
+        // Regions are keyed by text rather than by glyph, so that a glyph built again
+        // after being evicted from the glyph cache finds its region.
+        String regionKey = new String(text, 0, length);
+        Region region = strike.regions.get(regionKey);
+        if (region == null) {
+            region = strike.add(glyph);
+            strike.regions.put(regionKey, region);
+            trimToSize(MAX_BYTES, strike);
+        }
+        return region;
+    }
+
+    /**
+     * Return true if the region still belongs to the atlas.
+     */
+    static boolean isValid(Region region) {
+        return !region.strike.evicted;
+    }
+
+    /**
+     * Drop all atlas pages. Drawables rasterize their glyphs again on the next draw.
+     */
+    static synchronized void clear() {
+        trimToSize(0, null);
+    }
+
+    /**
+     * Evict the least recently used strikes until the pages take at most {@code maxBytes}.
+     *
+     * @param keep A strike which is never evicted, or null.
+     */
+    private static void trimToSize(int maxBytes, Strike keep) {
+        Iterator<Strike> strikes = sStrikes.values().iterator();
+        while (sByteCount > maxBytes && strikes.hasNext()) {
+            Strike strike = strikes.next();
+            if (strike != keep) {
+                strike.evicted = true;
+                sByteCount -= strike.byteCount;
+                strikes.remove();
+            }
+        }
+    }
+
+    private PrintAtlas() {
+    }
+
+    /**
+     * The location of a glyph in an atlas page.
+     */
+    static final class Region {
+        final Bitmap bitmap;
+        final Rect src;
+        final Strike strike;
+
+        Region(Bitmap bitmap, Rect src, Strike strike) {
+            this.bitmap = bitmap;
+            this.src = src;
+            this.strike = strike;
+        }
+    }
+
+    /**
+     * The glyphs of one font and size.
+     */
+    static final class Strike {
+        /**
+         * The regions by icon text.
+         */
+        final HashMap<String, Region> regions = new HashMap<>();
+        final ArrayList<Page> pages = new ArrayList<>();
+        int nextPageSize = MIN_PAGE_SIZE;
+        int byteCount;
+
+        /**
+         * Set once the strike is evicted, read by drawables without locking.
+         */
+        volatile boolean evicted;
+
+        Region add(GlyphCache.Glyph glyph) {
+            int width = Math.max(1, (int) Math.ceil(glyph.width));
+            int height = Math.max(1, (int) Math.ceil(glyph.height));
+
+            Page page = null;
+            if (width + PADDING <= PAGE_SIZE && height + PADDING <= PAGE_SIZE) {
+                for (int i = 0, size = pages.size(); i < size && page == null; i++) {
+                    if (pages.get(i).allocate(width, height)) {
+                        page = pages.get(i);
+                    }
+                }
+                if (page == null) {
+                    int pageSize = nextPageSize;
+                    while (pageSize < width + PADDING || pageSize < height + PADDING) {
+                        pageSize *= 2;
+                    }
+                    pageSize = Math.min(pageSize, PAGE_SIZE);
+                    nextPageSize = Math.min(pageSize * 2, PAGE_SIZE);
+                    page = addPage(pageSize, pageSize);
+                    page.allocate(width, height);
+                    pages.add(page);
+                }
+            } else {
+                // too large to be packed, gets a page of its own.
+                page = addPage(width, height);
+                page.allocate(width, height);
+            }
+
+            Rect src = new Rect(page.allocX, page.allocY, page.allocX + width, page.allocY + height);
+            page.canvas.translate(src.left, src.top);
+            page.canvas.drawPath(glyph.path, sPaint);
+            page.canvas.translate(-src.left, -src.top);
+            return new Region(page.bitmap, src, this);
+        }
+
+        private Page addPage(int width, int height) {
+            Page page = new Page(width, height);
+            // ALPHA_8 takes a byte per pixel
+            byteCount += width * height;
+            sByteCount += width * height;
+            return page;
+        }
+    }
+
+    /**
+     * An alpha bitmap filled with glyphs shelf by shelf.
+     */
+    private static final class Page {
+        final Bitmap bitmap;
+        final Canvas canvas;
+
+        /**
+         * The start of the free space on the current shelf.
+         */
+        int x;
+        /**
+         * The top of the current shelf.
+         */
+        int y;
+        int shelfHeight;
+
+        /**
+         * The position of the last allocated glyph.
+         */
+        int allocX;
+        int allocY;
+
+        Page(int width, int height) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+            canvas = new Canvas(bitmap);
+        }
+
+        /**
+         * Allocate space for a glyph. The page is left unchanged if the glyph does not fit.
+         */
+        boolean allocate(int width, int height) {
+            int shelfX = x;
+            int shelfY = y;
+            int shelfHeight = this.shelfHeight;
+            if (shelfX + width > bitmap.getWidth()) {
+                // start a new shelf
+                shelfY += shelfHeight + PADDING;
+                shelfX = 0;
+                shelfHeight = 0;
+            }
+            if (shelfX + width > bitmap.getWidth() || shelfY + height > bitmap.getHeight()) {
+                return false;
+            }
+            allocX = shelfX;
+            allocY = shelfY;
+            x = shelfX + width + PADDING;
+            y = shelfY;
+            this.shelfHeight = Math.max(shelfHeight, height);
+            return true;
+        }
+    }
+
+    private static final class StrikeKey {
+        private final Typeface mFont;
+        private final int mSize;
+
+        StrikeKey(Typeface font, int size) {
+            mFont = font;
+            mSize = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StrikeKey)) return false;
+            StrikeKey key = (StrikeKey) o;
+            return mSize == key.mSize
+                    && (mFont == null ? key.mFont == null : mFont.equals(key.mFont));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (mFont != null ? mFont.hashCode() : 0) + mSize;
+        }
+    }
+
+}
\ No newline at end of file
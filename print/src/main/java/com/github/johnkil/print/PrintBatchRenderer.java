@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.SparseArray;
+
+/**
+ * Draws many icons of one font onto a canvas, e.g. the markers of a chart or a map overlay,
+ * without creating a drawable for each of them.
+ * <p/>
+ * Icons are given in primitive arrays and grouped by size and color, so that each group
+ * is drawn with a single canvas call and one paint is set up once per group. Icons keep
+ * the order of the arrays within a group.
+ * Icons outside of the Basic Multilingual Plane are drawn one by one. As icons are drawn
+ * by group, overlapping icons of different groups may not be drawn in the order of the arrays.
+ * <p/>
+ * The renderer reuses its buffers between draws and is not thread-safe.
+ */
+public class PrintBatchRenderer {
+
+    private final Context mContext;
+    private final int mFontId;
+    private Typeface mFont;
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
+    private final char[] mCodeChars = new char[2];
+
+    private char[] mChars = new char[0];
+    private float[] mPositions = new float[0];
+    private int[] mOrder = new int[0];
+    private int[] mSortBuffer = new int[0];
+
+    /**
+     * The glyph bounds of the font, by code, so that drawing doesn't lock the shared metrics.
+     */
+    private final SparseArray<float[]> mBounds = new SparseArray<>();
+
+    /**
+     * Create a renderer drawing the icons with the given font.
+     */
+    public PrintBatchRenderer(Typeface font) {
+        if (font == null) {
+            throw new IllegalArgumentException("Font must not be null.");
+        }
+        mContext = null;
+        mFontId = FontRegistry.NO_ID;
+        mFont = font;
+    }
+
+    /**
+     * Create a renderer drawing the icons with a font registered in {@link PrintConfig},
+     * or from assets. The font is loaded on first draw.
+     *
+     * @param aliasOrPath The alias of the font, or its file name in the assets directory.
+     */
+    public PrintBatchRenderer(Context context, String aliasOrPath) {
+        if (aliasOrPath == null) {
+            throw new IllegalArgumentException("Font must not be null.");
+        }
+        mContext = context.getApplicationContext();
+        mFontId = FontRegistry.obtainId(aliasOrPath);
+    }
+
+    /**
+     * Draw the icons centered on the given points.
+     *
+     * @param canvas The canvas to draw into.
+     * @param codes  The icon codes.
+     * @param xs     The x coordinates of the icon centers.
+     * @param ys     The y coordinates of the icon centers.
+     * @param sizes  The icon sizes (in pixels).
+     * @param colors The icon colors.
+     * @param count  The number of icons to draw, starting with the first element of each array.
+     */
+    public void draw(Canvas canvas, int[] codes, float[] xs, float[] ys, int[] sizes, int[] colors, int count) {
+        if (codes.length < count || xs.length < count || ys.length < count
+                || sizes.length < count || colors.length < count) {
+            throw new IllegalArgumentException("Arrays must hold at least " + count + " icons.");
+        }
+        if (count == 0) {
+            return;
+        }
+        if (mFont == null) {
+            mFont = FontRegistry.load(mContext.getAssets(), mFontId);
+        }
+        mPaint.setTypeface(mFont);
+        ensureCapacity(count);
+
+        int[] order = mOrder;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, mSortBuffer, 0, count, sizes, colors);
+        int first = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || compare(order[first], order[i], sizes, colors) != 0) {
+                drawGroup(canvas, codes, xs, ys, sizes[order[first]], colors[order[first]], first, i);
+                first = i;
+            }
+        }
+    }
+
+    /**
+     * Draw the icons of the given range of the order, which share a size and a color.
+     */
+    @SuppressWarnings("deprecation")
+    private void drawGroup(Canvas canvas, int[] codes, float[] xs, float[] ys, int size, int color,
+                           int start, int end) {
+        mPaint.setTextSize(size);
+        mPaint.setColor(color);
+
+        int length = 0;
+        for (int j = start; j < end; j++) {
+            int i = mOrder[j];
+            int charCount = Character.toChars(codes[i], mCodeChars, 0);
+            // Center the glyph on the point, like PrintDrawable centers it in its bounds.
+            float[] bounds = bounds(codes[i]);
+            float x = xs[i] - (bounds[0] + bounds[2]) / 2 * size;
+            float y = ys[i] - (bounds[1] + bounds[3]) / 2 * size;
+            if (charCount == 1) {
+                mChars[length] = mCodeChars[0];
+                mPositions[length * 2] = x;
+                mPositions[length * 2 + 1] = y;
+                length++;
+            } else {
+                // Positioned text places every char on its own, which splits surrogate pairs.
+                canvas.drawText(mCodeChars, 0, charCount, x, y, mPaint);
+            }
+        }
+        if (length > 0) {
+            canvas.drawPosText(mChars, 0, length, mPositions, mPaint);
+        }
+    }
+
+    private float[] bounds(int code) {
+        float[] bounds = mBounds.get(code);
+        if (bounds == null) {
+            bounds = GlyphMetrics.get(mFont, code);
+            mBounds.put(code, bounds);
+        }
+        return bounds;
+    }
+
+    /**
+     * Sort the icon indices in the given range by size, then color. The sort is stable,
+     * so icons of a group keep the order of the arrays.
+     */
+    static void sort(int[] order, int[] buffer, int from, int to, int[] sizes, int[] colors) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, from, middle, sizes, colors);
+        sort(order, buffer, middle, to, sizes, colors);
+        if (compare(order[middle - 1], order[middle], sizes, colors) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && compare(buffer[left], buffer[right], sizes, colors) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static int compare(int a, int b, int[] sizes, int[] colors) {
+        if (sizes[a] != sizes[b]) {
+            return sizes[a] < sizes[b] ? -1 : 1;
+        }
+        if (colors[a] != colors[b]) {
+            return colors[a] < colors[b] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private void ensureCapacity(int count) {
+        if (mOrder.length < count) {
+            mChars = new char[count];
+            mPositions = new float[count * 2];
+            mOrder = new int[count];
+            mSortBuffer = new int[count];
+        }
+    }
+
+}
@@ -119,15 +119,11 @@ public class PrintButton extends ImageButton implements IPrintView {
     @Override
     public void setIconSizeDp(float size) {
         getIcon().setIconSizeDp(size);
-        // hack for calling resizeFromDrawable()
-        setSelected(isSelected());
     }
 
     @Override
     public void setIconSize(int unit, float size) {
         getIcon().setIconSize(unit, size);
-        // hack for calling resizeFromDrawable()
-        setSelected(isSelected());
     }
 
     @Override
@@ -140,6 +136,11 @@ public class PrintButton extends ImageButton implements IPrintView {
         getIcon().setIconFont(path);
     }
 
+    @Override
+    public void setIconFontId(int id) {
+        getIcon().setIconFontId(id);
+    }
+
     @Override
     public void setIconFont(Typeface font) {
         getIcon().setIconFont(font);
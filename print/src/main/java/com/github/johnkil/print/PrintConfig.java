@@ -16,12 +16,29 @@
 
 package com.github.johnkil.print;
 
+import android.content.ComponentCallbacks2;
+import android.content.Context;
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
 
+import java.io.File;
+import java.io.FileDescriptor;
+import java.util.WeakHashMap;
+
 public class PrintConfig {
 
     private static PrintConfig sInstance;
+    private static volatile PrintDrawablePool sDrawablePool;
+    /**
+     * Not volatile, so that checking for metrics costs nothing on the draw path.
+     */
+    private static PrintMetrics sMetrics;
+    private static int sTextDrawSize;
+
+    /**
+     * The icons waiting for the default font.
+     */
+    private static final WeakHashMap<PrintDrawable, Boolean> sAwaitingIcons = new WeakHashMap<>();
 
     /**
      * Define the default iconic font.
@@ -42,7 +59,259 @@ public class PrintConfig {
      * @see #initDefault(AssetManager, String)
      */
     public static void initDefault(Typeface defaultFont) {
-        sInstance = new PrintConfig(defaultFont);
+        sInstance = new PrintConfig(defaultFont, null);
+    }
+
+    /**
+     * Define the default iconic font from a font file, e.g. one of a downloaded bundle.
+     * The file is mapped by the font loader rather than read into memory.
+     *
+     * @see #initDefault(AssetManager, String)
+     */
+    public static void initDefault(File defaultFontFile) {
+        initDefault(TypefaceManager.load(TypefaceManager.fileSource(defaultFontFile)));
+    }
+
+    /**
+     * Define the default iconic font from a raw resource. The font is copied once
+     * to the cache directory and loaded from there.
+     *
+     * @see #initDefault(AssetManager, String)
+     */
+    public static void initDefault(Context context, int rawResId) {
+        initDefault(TypefaceManager.load(TypefaceManager.rawSource(context, rawResId)));
+    }
+
+    /**
+     * Define the default iconic font, loading it on a background thread. Icons built before
+     * the font is loaded are drawn as soon as it becomes available. If the font cannot be loaded,
+     * the icons waiting for it throw the error on their next draw.
+     *
+     * @param assets          The application's asset manager.
+     * @param defaultFontPath The file name of the font in the assets directory,
+     *                        e.g. "fonts/iconic-font.ttf".
+     * @see #initDefault(AssetManager, String)
+     */
+    public static void initDefaultAsync(AssetManager assets, String defaultFontPath) {
+        sInstance = new PrintConfig(null, defaultFontPath);
+        TypefaceManager.loadAsync(assets, defaultFontPath, sFontLoaded);
+    }
+
+    /**
+     * Load the iconic fonts on a background thread, so that they are ready
+     * when the icons using them are created.
+     *
+     * @param assets The application's asset manager.
+     * @param paths  The file names of the fonts in the assets directory.
+     */
+    public static void preload(AssetManager assets, String... paths) {
+        for (String path : paths) {
+            TypefaceManager.loadAsync(assets, path, sFontLoaded);
+        }
+    }
+
+    /**
+     * Register the iconic font under a short alias, e.g.
+     * {@code PrintConfig.register("ss", "fonts/ss-standard.otf")}. The alias can be used
+     * in place of the font path everywhere, including the {@code print_iconFont} attribute.
+     * The font itself is loaded on first use.
+     *
+     * @param alias The alias of the font.
+     * @param path  The file name of the font in the assets directory.
+     * @return the id of the font, which can be used to set the font of icons without any lookup.
+     * @see #getFontId(String)
+     */
+    public static int register(String alias, String path) {
+        return FontRegistry.register(alias, path);
+    }
+
+    /**
+     * Register the iconic font file under a short alias. The file is mapped by the font loader
+     * rather than read into memory.
+     *
+     * @see #register(String, String)
+     */
+    public static int register(String alias, File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null.");
+        }
+        return FontRegistry.register(alias, TypefaceManager.fileSource(file));
+    }
+
+    /**
+     * Register the iconic font in {@code res/raw} under a short alias. The font is copied once
+     * to the cache directory and loaded from there.
+     *
+     * @see #register(String, String)
+     */
+    public static int register(Context context, String alias, int rawResId) {
+        return FontRegistry.register(alias, TypefaceManager.rawSource(context, rawResId));
+    }
+
+    /**
+     * Register the iconic font read from the file descriptor under a short alias. The font is
+     * copied once to the cache directory on first use, so the descriptor must stay open until
+     * then; it is never closed by the library.
+     *
+     * @param key A stable identifier of the font data, e.g. the name and version of
+     *            the downloaded bundle. Fonts are cached by this key.
+     * @see #register(String, String)
+     */
+    public static int register(Context context, String alias, FileDescriptor fd, String key) {
+        if (fd == null || key == null) {
+            throw new IllegalArgumentException("File descriptor and key must not be null.");
+        }
+        return FontRegistry.register(alias, TypefaceManager.descriptorSource(context, fd, key));
+    }
+
+    /**
+     * Return the id of the font registered under the alias.
+     *
+     * @see #register(String, String)
+     */
+    public static int getFontId(String alias) {
+        int id = FontRegistry.getId(alias);
+        if (id == FontRegistry.NO_ID) {
+            throw new IllegalArgumentException("The font is not registered: " + alias);
+        }
+        return id;
+    }
+
+    /**
+     * Set the maximum number of glyph outlines kept in the cache shared by all icons.
+     * The default is {@value GlyphCache#DEFAULT_MAX_SIZE}.
+     *
+     * @see #getGlyphCacheHitCount()
+     * @see #getGlyphCacheMissCount()
+     */
+    public static void setGlyphCacheSize(int maxGlyphs) {
+        GlyphCache.setMaxSize(maxGlyphs);
+    }
+
+    /**
+     * Return the number of times a glyph outline was found in the shared cache.
+     *
+     * @see #setGlyphCacheSize(int)
+     */
+    public static int getGlyphCacheHitCount() {
+        return GlyphCache.hitCount();
+    }
+
+    /**
+     * Return the number of times a glyph outline had to be built because it was not cached.
+     *
+     * @see #setGlyphCacheSize(int)
+     */
+    public static int getGlyphCacheMissCount() {
+        return GlyphCache.missCount();
+    }
+
+    /**
+     * Release cached icon bitmaps, glyph outlines, inflated icons and pooled icons when the system runs
+     * low on memory.
+     * Should be called from {@link android.content.ComponentCallbacks2#onTrimMemory(int)},
+     * e.g. in {@link android.app.Application#onTrimMemory(int)}.
+     *
+     * @param level The context of the trim, giving a hint of the amount of trimming
+     *              the application may like to perform.
+     */
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            PrintAtlas.clear();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            GlyphCache.trimToSize(0);
+            GlyphMetrics.clear();
+            IconSpecCache.clear();
+            PrintDrawablePool pool = sDrawablePool;
+            if (pool != null) {
+                pool.clear();
+            }
+        }
+    }
+
+    /**
+     * Invalidate the icon when the default font is loaded.
+     */
+    static void awaitFont(PrintDrawable icon) {
+        synchronized (sAwaitingIcons) {
+            sAwaitingIcons.put(icon, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Called on the main thread when a font is loaded in background, or has failed to load.
+     */
+    private static final Runnable sFontLoaded = new Runnable() {
+        @Override
+        public void run() {
+            PrintDrawable[] icons;
+            synchronized (sAwaitingIcons) {
+                icons = sAwaitingIcons.keySet().toArray(new PrintDrawable[sAwaitingIcons.size()]);
+                sAwaitingIcons.clear();
+            }
+            for (PrintDrawable icon : icons) {
+                if (icon != null) {
+                    icon.onFontLoaded();
+                }
+            }
+        }
+    };
+
+    /**
+     * Set the pool used to recycle icons, or null to always create new ones.
+     * Pooling is disabled by default.
+     *
+     * @see PrintDrawablePool#release(PrintDrawable)
+     */
+    public static void setDrawablePool(PrintDrawablePool pool) {
+        sDrawablePool = pool;
+    }
+
+    /**
+     * @return the pool used to recycle icons, or null.
+     */
+    static PrintDrawablePool getDrawablePool() {
+        return sDrawablePool;
+    }
+
+    /**
+     * Draw icons of at least the given size as text rather than as glyph outlines, which uses
+     * the platform glyph cache and is faster for large icons. Applies to the icons with
+     * {@link PrintDrawable#DRAW_MODE_AUTO}, the default. Disabled by default.
+     *
+     * @param minSizePx The minimum icon size (in pixels), or 0 to always draw icons as paths.
+     */
+    public static void setTextDrawSize(int minSizePx) {
+        if (minSizePx < 0) {
+            throw new IllegalArgumentException("Size must not be negative.");
+        }
+        sTextDrawSize = minSizePx;
+    }
+
+    /**
+     * @return the minimum size of icons drawn as text, or 0 if icons are always drawn as paths.
+     */
+    static int getTextDrawSize() {
+        return sTextDrawSize;
+    }
+
+    /**
+     * Set the listener receiving rendering measurements, or null to disable them.
+     * Metrics are disabled by default. Should be set on the main thread, e.g. in
+     * {@code Application.onCreate()}.
+     *
+     * @see PrintMetrics.Counters
+     */
+    public static void setMetrics(PrintMetrics metrics) {
+        sMetrics = metrics;
+    }
+
+    /**
+     * @return the listener receiving rendering measurements, or null.
+     */
+    static PrintMetrics getMetrics() {
+        return sMetrics;
     }
 
     static PrintConfig get() {
@@ -53,24 +322,37 @@ public class PrintConfig {
 
 
     private final Typeface mFont;
+    private final String mFontPath;
     private final boolean mIsFontSet;
 
     private PrintConfig() {
-        this(null);
+        this(null, null);
     }
 
-    private PrintConfig(Typeface defaultFont) {
+    private PrintConfig(Typeface defaultFont, String defaultFontPath) {
         mFont = defaultFont;
-        mIsFontSet = defaultFont != null;
+        mFontPath = defaultFontPath;
+        mIsFontSet = defaultFont != null || defaultFontPath != null;
     }
 
     /**
-     * @return the default font.
+     * @return the default font, or null if it is not set or is still loading.
+     * @throws RuntimeException if loading the default font in background has failed.
      */
     Typeface getFont() {
+        if (mFont == null && mFontPath != null) {
+            return TypefaceManager.peek(mFontPath);
+        }
         return mFont;
     }
 
+    /**
+     * @return the path of the default font in assets, or null if it was not set by path.
+     */
+    String getFontPath() {
+        return mFontPath;
+    }
+
     /**
      * @return true if default font is set.
      */
@@ -21,18 +21,23 @@ import android.content.res.ColorStateList;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DimenRes;
 import android.support.annotation.IntegerRes;
 import android.support.annotation.StringRes;
+import android.text.TextUtils;
 import android.util.Log;
+import android.util.StateSet;
 import android.util.TypedValue;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
 
 /**
  * Drawable for displaying icons from iconic fonts.
@@ -40,41 +45,161 @@ import android.util.TypedValue;
  * @author Evgeny Shishkin
  */
 public class PrintDrawable extends Drawable implements IPrint {
-    private final Context mContext;
+    /**
+     * Draw the icon as a path, or as text from the size set with
+     * {@link PrintConfig#setTextDrawSize(int)}.
+     */
+    public static final int DRAW_MODE_AUTO = 0;
+    /**
+     * Always draw the icon as a path.
+     */
+    public static final int DRAW_MODE_PATH = 1;
+    /**
+     * Always draw the icon as text, which uses the platform glyph cache and is faster at large sizes.
+     */
+    public static final int DRAW_MODE_TEXT = 2;
+
+    /**
+     * The icon code of icons set by text.
+     */
+    private static final int NO_CODE = -1;
+
+    private Context mContext;
     private final Paint mPaint;
-    private final Path mPath;
-    private final RectF mPathBounds;
 
     private CharSequence mIconText;
     private ColorStateList mIconColor;
     private Typeface mIconFont;
+    private int mIconFontId;
+
+    /**
+     * The chars of the icon text. Reused when the icon code changes, so no text is allocated.
+     */
+    private char[] mIconChars;
+    private int mIconLength;
+    private int mIconCode = NO_CODE;
     private int mIconSize;
 
-    private final boolean mInEditMode;
+    private boolean mInEditMode;
+    private boolean mRasterCache;
+    private int mDrawMode;
+
+    /**
+     * The glyphs drawn on top of the icon, or null.
+     */
+    private Layer[] mLayers;
 
     private int mCurIconColor;
 
-    private PrintDrawable(Context context, CharSequence iconText,
-                          ColorStateList iconColor, Typeface iconFont, int iconSize, boolean inEditMode) {
-        mContext = context;
+    /**
+     * The alpha set with {@link #setAlpha(int)}, applied to the colors of the icon and its layers.
+     */
+    private int mAlpha = 255;
+
+    /**
+     * The duration of color transitions between states, in milliseconds.
+     */
+    private int mColorDuration;
+    private boolean mColorAnimating;
+    private long mColorStart;
+    private int mFromIconColor;
+    private boolean mFontPending;
+    private GlyphCache.Glyph mGlyph;
+    private PrintAtlas.Region mRegion;
+    private final RectF mRegionBounds;
+
+    private boolean mGlyphSized;
+
+    /**
+     * The bounds of the icon text relative to its origin, for centering the text
+     * and measuring the glyph size.
+     */
+    private final RectF mTextBounds;
+    private boolean mTextBoundsValid;
+
+    /**
+     * The intrinsic size last returned, to update the view when the size changes.
+     */
+    private int mReportedWidth;
+    private int mReportedHeight;
+
+    /**
+     * The snapshot of the icon state, created on demand.
+     */
+    private PrintState mState;
+
+    /**
+     * True once the drawable is released to a {@link PrintDrawablePool}, until it is reused.
+     */
+    boolean mReleased;
+
+    PrintDrawable() {
         mPaint = new Paint();
+        mRegionBounds = new RectF();
+        mTextBounds = new RectF();
+        mIconChars = new char[2];
+    }
+
+    /**
+     * Set up the state of a new or recycled drawable.
+     */
+    private void init(Context context, CharSequence iconText, int iconCode, ColorStateList iconColor,
+                      Typeface iconFont, int iconFontId, boolean fontPending, int iconSize,
+                      int colorDuration, boolean inEditMode, boolean rasterCache, int drawMode,
+                      boolean glyphSized, Layer[] layers) {
+        mContext = context;
         mPaint.setFlags(mPaint.getFlags() | Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
-        mPath = new Path();
-        mPathBounds = new RectF();
 
-        mIconText = iconText;
+        mIconText = null;
+        mIconLength = 0;
+        mIconCode = NO_CODE;
+        if (iconCode != NO_CODE) {
+            copyIconCode(iconCode);
+        } else if (iconText != null) {
+            copyIconText(iconText);
+        }
         mIconColor = iconColor;
         mIconFont = iconFont;
+        mIconFontId = iconFontId;
+        mFontPending = fontPending;
         mIconSize = iconSize;
 
         mInEditMode = inEditMode;
+        mRasterCache = rasterCache;
+        mDrawMode = drawMode;
+        mGlyphSized = glyphSized;
+        mLayers = layers;
+        mColorDuration = colorDuration;
+        mColorAnimating = false;
+        mAlpha = 255;
+        mReportedWidth = -1;
+        mReportedHeight = -1;
+
+        mGlyph = null;
+        mState = null;
+        mRegion = null;
+        mTextBoundsValid = false;
 
         mPaint.setTextSize(mIconSize);
         mPaint.setTypeface(mIconFont);
 
-        if (mIconColor != null) {
-            updateIconColors();
-        }
+        mCurIconColor = mPaint.getColor();
+        mFromIconColor = mCurIconColor;
+        updateIconColors(false);
+    }
+
+    /**
+     * Clear the state of the drawable before it is returned to a pool.
+     *
+     * @see PrintDrawablePool#release(PrintDrawable)
+     */
+    void recycle() {
+        setCallback(null);
+        setBounds(0, 0, 0, 0);
+        setState(StateSet.WILD_CARD);
+        mPaint.reset();
+        init(null, null, NO_CODE, null, null, FontRegistry.NO_ID, false, 0, 0, false, false,
+                DRAW_MODE_AUTO, false, null);
     }
 
     @Override
@@ -89,17 +214,59 @@ public class PrintDrawable extends Drawable implements IPrint {
 
     @Override
     public void setIconCode(int code) {
-        setIconText(new String(Character.toChars(code)));
+        if (code == mIconCode) {
+            return;
+        }
+        copyIconCode(code);
+        mGlyph = null;
+        mState = null;
+        mTextBoundsValid = false;
+        invalidateSize();
+        invalidateSelf();
     }
 
     @Override
     public void setIconText(CharSequence text) {
-        mIconText = text;
+        if (mIconCode == NO_CODE && TextUtils.equals(text, mIconText)) {
+            return;
+        }
+        if (text != null) {
+            copyIconText(text);
+        } else {
+            mIconText = null;
+            mIconLength = 0;
+            mIconCode = NO_CODE;
+        }
+        mGlyph = null;
+        mState = null;
+        mTextBoundsValid = false;
+        invalidateSize();
         invalidateSelf();
     }
 
+    private void copyIconCode(int code) {
+        mIconLength = Character.toChars(code, mIconChars, 0);
+        mIconCode = code;
+        // created on demand by getIconText()
+        mIconText = null;
+    }
+
+    private void copyIconText(CharSequence text) {
+        int length = text.length();
+        if (length > mIconChars.length) {
+            mIconChars = new char[length];
+        }
+        TextUtils.getChars(text, 0, length, mIconChars, 0);
+        mIconLength = length;
+        mIconCode = NO_CODE;
+        mIconText = text;
+    }
+
     @Override
     public CharSequence getIconText() {
+        if (mIconText == null && mIconCode != NO_CODE) {
+            mIconText = new String(mIconChars, 0, mIconLength);
+        }
         return mIconText;
     }
 
@@ -110,6 +277,9 @@ public class PrintDrawable extends Drawable implements IPrint {
 
     @Override
     public void setIconColor(int color) {
+        if (mIconColor != null && !mIconColor.isStateful() && mIconColor.getDefaultColor() == color) {
+            return;
+        }
         setIconColor(ColorStateList.valueOf(color));
     }
 
@@ -118,9 +288,14 @@ public class PrintDrawable extends Drawable implements IPrint {
         if (colors == null) {
             throw new IllegalArgumentException("Color must not be null.");
         }
+        if (colors == mIconColor) {
+            return;
+        }
         mIconColor = colors;
-        updateIconColors();
-        invalidateSelf();
+        mState = null;
+        if (updateIconColors(false)) {
+            invalidateSelf();
+        }
     }
 
     @Override
@@ -141,9 +316,15 @@ public class PrintDrawable extends Drawable implements IPrint {
 
     @Override
     public void setIconSize(int unit, float size) {
-        mIconSize = (int) TypedValue.applyDimension(
+        int iconSize = (int) TypedValue.applyDimension(
                 unit, size, mContext.getResources().getDisplayMetrics());
+        if (iconSize == mIconSize) {
+            return;
+        }
+        mIconSize = iconSize;
         mPaint.setTextSize(mIconSize);
+        invalidateGlyphs();
+        invalidateSize();
         invalidateSelf();
     }
 
@@ -154,7 +335,25 @@ public class PrintDrawable extends Drawable implements IPrint {
 
     @Override
     public void setIconFont(String path) {
-        setIconFont(TypefaceManager.load(mContext.getAssets(), path));
+        if (path == null) {
+            throw new IllegalArgumentException("Font must not be null.");
+        }
+        setIconFontId(FontRegistry.obtainId(path));
+    }
+
+    @Override
+    public void setIconFontId(int id) {
+        FontRegistry.checkId(id);
+        if (id == mIconFontId) {
+            return;
+        }
+        // the font is loaded on first use
+        mIconFont = null;
+        mIconFontId = id;
+        mFontPending = true;
+        invalidateGlyphs();
+        invalidateSize();
+        invalidateSelf();
     }
 
     @Override
@@ -162,13 +361,23 @@ public class PrintDrawable extends Drawable implements IPrint {
         if (font == null) {
             throw new IllegalArgumentException("Font must not be null.");
         }
+        if (font == mIconFont && mIconFontId == FontRegistry.NO_ID) {
+            return;
+        }
         mIconFont = font;
+        mIconFontId = FontRegistry.NO_ID;
+        mFontPending = false;
         mPaint.setTypeface(mIconFont);
+        invalidateGlyphs();
+        invalidateSize();
         invalidateSelf();
     }
 
     @Override
     public Typeface getIconFont() {
+        if (mFontPending) {
+            resolveFont();
+        }
         return mIconFont;
     }
 
@@ -179,58 +388,369 @@ public class PrintDrawable extends Drawable implements IPrint {
 
     @Override
     protected boolean onStateChange(int[] state) {
-        if (mIconColor != null && mIconColor.isStateful()) {
-            updateIconColors();
+        if (updateIconColors(true)) {
             invalidateSelf();
+            return true;
         }
         return super.onStateChange(state);
     }
 
-    private void updateIconColors() {
-        int color = mIconColor.getColorForState(getState(), 0);
-        if (color != mCurIconColor) {
-            mCurIconColor = color;
-            mPaint.setColor(mCurIconColor);
+    /**
+     * @param animate Whether to animate the change of colors, if a duration is set.
+     * @return true if the current color of the icon or of one of its layers has changed.
+     */
+    private boolean updateIconColors(boolean animate) {
+        int[] state = getState();
+        int iconColor = mIconColor != null ? mIconColor.getColorForState(state, 0) : mCurIconColor;
+        boolean changed = iconColor != mCurIconColor;
+        if (mLayers != null) {
+            for (Layer layer : mLayers) {
+                changed |= layer.color.getColorForState(state, layer.color.getDefaultColor()) != layer.curColor;
+            }
+        }
+        if (!changed) {
+            return false;
+        }
+        animate = animate && mColorDuration > 0;
+        if (animate) {
+            // A new transition starts from the colors currently displayed. The start colors
+            // are only moved together with the start time, so a running transition doesn't jump.
+            float fraction = colorFraction();
+            mFromIconColor = blendColors(mFromIconColor, mCurIconColor, fraction);
+            if (mLayers != null) {
+                for (Layer layer : mLayers) {
+                    layer.fromColor = blendColors(layer.fromColor, layer.curColor, fraction);
+                }
+            }
+            mColorStart = SystemClock.uptimeMillis();
+            mColorAnimating = true;
+        }
+        mCurIconColor = iconColor;
+        if (mLayers != null) {
+            for (Layer layer : mLayers) {
+                layer.curColor = layer.color.getColorForState(state, layer.color.getDefaultColor());
+            }
+        }
+        if (!animate) {
+            mColorAnimating = false;
+            setPaintColor(mCurIconColor);
+        }
+        return true;
+    }
+
+    /**
+     * @return the progress of the color transition, from 0 to 1.
+     */
+    private float colorFraction() {
+        if (!mColorAnimating) {
+            return 1f;
         }
+        float fraction = (SystemClock.uptimeMillis() - mColorStart) / (float) mColorDuration;
+        return Math.min(fraction, 1f);
+    }
+
+    private static int blendColors(int from, int to, float ratio) {
+        if (ratio >= 1f) {
+            return to;
+        }
+        final float inverseRatio = 1f - ratio;
+        int a = (int) (((from >>> 24) * inverseRatio) + ((to >>> 24) * ratio));
+        int r = (int) ((((from >> 16) & 0xff) * inverseRatio) + (((to >> 16) & 0xff) * ratio));
+        int g = (int) ((((from >> 8) & 0xff) * inverseRatio) + (((to >> 8) & 0xff) * ratio));
+        int b = (int) (((from & 0xff) * inverseRatio) + ((to & 0xff) * ratio));
+        return (a << 24) | (r << 16) | (g << 8) | b;
     }
 
     @Override
     public int getIntrinsicHeight() {
-        return mIconSize;
+        if (isGlyphSized()) {
+            updateTextBounds();
+            mReportedHeight = (int) Math.ceil(mTextBounds.height());
+        } else {
+            mReportedHeight = mIconSize;
+        }
+        return mReportedHeight;
     }
 
     @Override
     public int getIntrinsicWidth() {
-        return mIconSize;
+        if (isGlyphSized()) {
+            updateTextBounds();
+            mReportedWidth = (int) Math.ceil(mTextBounds.width());
+        } else {
+            mReportedWidth = mIconSize;
+        }
+        return mReportedWidth;
+    }
+
+    /**
+     * @return true if the intrinsic size is the size of the glyph rather than the icon size.
+     */
+    private boolean isGlyphSized() {
+        if (!mGlyphSized || mIconLength == 0 || mLayers != null) {
+            return false;
+        }
+        // The glyph can only be measured once the font is loaded, so it is loaded on measure
+        // rather than on first draw. Until a font loaded in background is ready, the icon size is used.
+        return !mFontPending || (!mInEditMode && resolveFont());
+    }
+
+    /**
+     * Update the view displaying the icon if the intrinsic size has changed since it was last
+     * returned. The size is only measured again if the icon is displayed in an image view.
+     */
+    private void invalidateSize() {
+        Callback callback = getCallback();
+        if (!(callback instanceof ImageView) || mReportedWidth == -1 || mReportedHeight == -1) {
+            return;
+        }
+        int oldWidth = mReportedWidth;
+        int oldHeight = mReportedHeight;
+        if (getIntrinsicWidth() != oldWidth || getIntrinsicHeight() != oldHeight) {
+            PrintViewUtils.updateIconSize((ImageView) callback, this);
+        }
+    }
+
+    /**
+     * Called on the main thread when the font the icon waits for is loaded in background.
+     */
+    void onFontLoaded() {
+        invalidateSize();
+        invalidateSelf();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        if (mIconText != null && !mInEditMode) {
-            final Rect bounds = getBounds();
+        PrintMetrics metrics = PrintConfig.getMetrics();
+        if (metrics == null) {
+            drawIcons(canvas);
+        } else {
+            long start = System.nanoTime();
+            drawIcons(canvas);
+            metrics.onDraw(System.nanoTime() - start);
+        }
+    }
+
+    private void drawIcons(Canvas canvas) {
+        if (mInEditMode || (mIconLength == 0 && mLayers == null)) {
+            return;
+        }
+        if (mFontPending && !(mLayers == null && loadPackedGlyph()) && !resolveFont()) {
+            return;
+        }
+        // Color transitions only change the paint color,
+        // the glyphs are drawn from the cache on every frame.
+        float colorFraction = colorFraction();
+        int iconColor = blendColors(mFromIconColor, mCurIconColor, colorFraction);
+        if (mColorAnimating) {
+            setPaintColor(iconColor);
+        }
+
+        final Rect bounds = getBounds();
+        if (mIconLength > 0) {
+            drawIcon(canvas, bounds);
+        }
+        if (mLayers != null) {
+            for (Layer layer : mLayers) {
+                setPaintColor(blendColors(layer.fromColor, layer.curColor, colorFraction));
+                drawLayer(canvas, bounds, layer);
+            }
+            setPaintColor(iconColor);
+        }
+
+        if (mColorAnimating) {
+            if (colorFraction < 1f) {
+                invalidateSelf();
+            } else {
+                mColorAnimating = false;
+            }
+        }
+    }
+
+    private void drawIcon(Canvas canvas, Rect bounds) {
+        if (isTextDrawn()) {
+            drawIconText(canvas, bounds);
+            return;
+        }
+        if (mGlyph == null) {
+            // The glyph depends only on the icon text, font and size,
+            // so it is kept between draws and shared with other drawables.
+            mGlyph = GlyphCache.get(mIconFont, mIconChars, mIconLength, mIconSize);
+            mRegion = null;
+        }
+        float offsetX = bounds.centerX() - (mGlyph.width / 2);
+        float offsetY = bounds.centerY() - (mGlyph.height / 2);
+
+        // The atlas keys glyphs by font, so glyphs exported at build time
+        // are drawn as paths until the font is loaded.
+        if (mRasterCache && !mFontPending) {
+            if (mRegion == null || !PrintAtlas.isValid(mRegion)) {
+                mRegion = PrintAtlas.get(mIconFont, mIconSize, mIconChars, mIconLength, mGlyph);
+            }
+            // Alpha bitmaps are drawn with the paint color, so the current
+            // state color is applied without rasterizing the glyph again.
+            mRegionBounds.set(offsetX, offsetY,
+                    offsetX + mRegion.src.width(), offsetY + mRegion.src.height());
+            canvas.drawBitmap(mRegion.bitmap, mRegion.src, mRegionBounds, mPaint);
+        } else {
+            canvas.translate(offsetX, offsetY);
+            canvas.drawPath(mGlyph.path, mPaint);
+            canvas.translate(-offsetX, -offsetY);
+        }
+    }
+
+    /**
+     * @return true if the icon is drawn as text rather than as a path.
+     */
+    private boolean isTextDrawn() {
+        if (mDrawMode == DRAW_MODE_PATH || mFontPending) {
+            // glyphs exported at build time are drawn without the font
+            return false;
+        }
+        if (mDrawMode == DRAW_MODE_TEXT) {
+            return true;
+        }
+        int textDrawSize = PrintConfig.getTextDrawSize();
+        return textDrawSize > 0 && mIconSize >= textDrawSize;
+    }
+
+    /**
+     * Draw the icon text centered by its bounds, like the glyph outline is centered.
+     */
+    private void drawIconText(Canvas canvas, Rect bounds) {
+        updateTextBounds();
+        float x = bounds.centerX() - mTextBounds.centerX();
+        float y = bounds.centerY() - mTextBounds.centerY();
+        canvas.drawText(mIconChars, 0, mIconLength, x, y, mPaint);
+    }
 
-            mPaint.getTextPath(mIconText.toString(), 0, mIconText.length(), 0, bounds.height(), mPath);
-            mPath.computeBounds(mPathBounds, true);
-            offsetIcon(bounds);
+    /**
+     * Compute the bounds of the icon text at the icon size, from the glyph metrics
+     * shared by all icons when the text is a single glyph.
+     */
+    private void updateTextBounds() {
+        if (mTextBoundsValid) {
+            return;
+        }
+        int code = Character.codePointAt(mIconChars, 0);
+        if (Character.charCount(code) == mIconLength) {
+            float[] glyphBounds = GlyphMetrics.get(mIconFont, code);
+            mTextBounds.set(glyphBounds[0] * mIconSize, glyphBounds[1] * mIconSize,
+                    glyphBounds[2] * mIconSize, glyphBounds[3] * mIconSize);
+        } else {
+            Rect textBounds = new Rect();
+            mPaint.getTextBounds(mIconChars, 0, mIconLength, textBounds);
+            mTextBounds.set(textBounds.left, textBounds.top, textBounds.right, textBounds.bottom);
+        }
+        mTextBoundsValid = true;
+    }
 
-            mPath.close();
-            canvas.drawPath(mPath, mPaint);
+    /**
+     * Draw the layer on top of the icon with the current paint color. Layers are always drawn
+     * as paths, centered in the bounds like the icon itself.
+     */
+    private void drawLayer(Canvas canvas, Rect bounds, Layer layer) {
+        if (layer.glyph == null) {
+            Typeface font = layer.fontId != FontRegistry.NO_ID
+                    ? FontRegistry.load(mContext.getAssets(), layer.fontId)
+                    : mIconFont;
+            layer.glyph = GlyphCache.get(font, layer.chars, layer.length, mIconSize);
         }
+        float offsetX = bounds.centerX() - (layer.glyph.width / 2);
+        float offsetY = bounds.centerY() - (layer.glyph.height / 2);
+
+        canvas.translate(offsetX, offsetY);
+        canvas.drawPath(layer.glyph.path, mPaint);
+        canvas.translate(-offsetX, -offsetY);
     }
 
-    private void offsetIcon(Rect bounds) {
-        float startX = bounds.centerX() - (mPathBounds.width() / 2);
-        float offsetX = startX - mPathBounds.left;
+    /**
+     * Drop the glyphs which depend on the icon size or font.
+     */
+    private void invalidateGlyphs() {
+        mGlyph = null;
+        mState = null;
+        mTextBoundsValid = false;
+        if (mLayers != null) {
+            for (Layer layer : mLayers) {
+                layer.glyph = null;
+            }
+        }
+    }
 
-        float startY = bounds.centerY() - (mPathBounds.height() / 2);
-        float offsetY = startY - (mPathBounds.top);
+    /**
+     * Take the glyph of the icon code from the glyphs exported at build time, so that the font
+     * does not need to be loaded.
+     *
+     * @return true if the glyph is ready.
+     * @see GlyphPack
+     */
+    private boolean loadPackedGlyph() {
+        if (mGlyph == null) {
+            int code = mIconCode;
+            if (code == NO_CODE) {
+                code = Character.codePointAt(mIconChars, 0);
+                if (Character.charCount(code) != mIconLength) {
+                    return false;
+                }
+            }
+            GlyphPack.Font glyphs = mIconFontId != FontRegistry.NO_ID
+                    ? FontRegistry.getPackedGlyphs(mContext.getAssets(), mIconFontId)
+                    : GlyphPack.get(mContext.getAssets(), PrintConfig.get().getFontPath());
+            if (glyphs != null && glyphs.contains(code)) {
+                mGlyph = GlyphCache.get(glyphs, code, mIconChars, mIconLength, mIconSize);
+                mRegion = null;
+            }
+        }
+        return mGlyph != null;
+    }
 
-        mPath.offset(offsetX, offsetY);
+    /**
+     * Load the font from assets, or take the default font if it has been loaded in background.
+     * Fonts are resolved on first use, so icons which are never drawn do not load them.
+     *
+     * @return true if the font is ready.
+     * @see PrintConfig#initDefaultAsync(android.content.res.AssetManager, String)
+     */
+    private boolean resolveFont() {
+        Typeface font = mIconFontId != FontRegistry.NO_ID
+                ? FontRegistry.load(mContext.getAssets(), mIconFontId)
+                : PrintConfig.get().getFont();
+        if (font == null) {
+            PrintConfig.awaitFont(this);
+            return false;
+        }
+        mIconFont = font;
+        mFontPending = false;
+        mPaint.setTypeface(mIconFont);
+        invalidateGlyphs();
+        return true;
     }
 
     @Override
     public void setAlpha(int alpha) {
-        mPaint.setAlpha(alpha);
+        if (alpha == mAlpha) {
+            return;
+        }
+        mAlpha = alpha;
+        setPaintColor(blendColors(mFromIconColor, mCurIconColor, colorFraction()));
+        invalidateSelf();
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    /**
+     * Set the paint color, with its alpha multiplied by the alpha of the drawable.
+     */
+    private void setPaintColor(int color) {
+        if (mAlpha != 255) {
+            int alpha = (color >>> 24) * mAlpha / 255;
+            color = (color & 0x00ffffff) | (alpha << 24);
+        }
+        mPaint.setColor(color);
     }
 
     @Override
@@ -243,6 +763,162 @@ public class PrintDrawable extends Drawable implements IPrint {
         return PixelFormat.TRANSLUCENT;
     }
 
+    /**
+     * Create a state of the icon bound to the given context rather than the icon's,
+     * e.g. the application context for a state kept across activities. The state of
+     * the icon itself is left unchanged.
+     */
+    ConstantState newState(Context context) {
+        return new PrintState(this, context);
+    }
+
+    /**
+     * Create an icon from a state returned by {@link #newState(Context)}, running in the given context.
+     * The icon is taken from the drawable pool if pooling is enabled.
+     */
+    static PrintDrawable fromState(ConstantState state, Context context) {
+        PrintDrawablePool pool = PrintConfig.getDrawablePool();
+        PrintDrawable icon = pool != null ? pool.obtain() : new PrintDrawable();
+        ((PrintState) state).apply(icon, context);
+        return icon;
+    }
+
+    /**
+     * Return the state of the icon. Drawables created from it share the text, font, size,
+     * colors and the glyph outline of this icon, so they need no font lookup and no path build.
+     */
+    @Override
+    public ConstantState getConstantState() {
+        if (mState == null) {
+            mState = new PrintState(this);
+        }
+        return mState;
+    }
+
+    /**
+     * Return this drawable. Copy-on-write is not needed: drawables created from the same state
+     * copy everything they change, like the colors and layers, and share only immutable parts,
+     * like the color state lists and the glyph outline. A color or size set on one of them
+     * never affects the others, so every icon is already mutated.
+     */
+    @Override
+    public Drawable mutate() {
+        return this;
+    }
+
+    /**
+     * A glyph drawn on top of the icon with its own color and, optionally, its own font.
+     */
+    private static final class Layer {
+        final char[] chars;
+        final int length;
+        final ColorStateList color;
+        final int fontId;
+
+        GlyphCache.Glyph glyph;
+        int curColor;
+        int fromColor;
+
+        Layer(int code, ColorStateList color, int fontId) {
+            this.chars = Character.toChars(code);
+            this.length = chars.length;
+            this.color = color;
+            this.fontId = fontId;
+            this.curColor = color.getDefaultColor();
+            this.fromColor = curColor;
+        }
+
+        Layer(Layer layer) {
+            this.chars = layer.chars;
+            this.length = layer.length;
+            this.color = layer.color;
+            this.fontId = layer.fontId;
+            this.curColor = layer.curColor;
+            this.fromColor = layer.curColor;
+            this.glyph = layer.glyph;
+        }
+    }
+
+    /**
+     * The immutable parts of an icon, captured when the state is created.
+     */
+    private static final class PrintState extends ConstantState {
+        final Context context;
+        final CharSequence text;
+        final int code;
+        final ColorStateList color;
+        final Typeface font;
+        final int fontId;
+        final boolean fontPending;
+        final int size;
+        final int colorDuration;
+        final boolean inEditMode;
+        final boolean rasterCache;
+        final int drawMode;
+        final boolean glyphSized;
+        final Layer[] layers;
+        final int changingConfigurations;
+
+        /**
+         * The glyph outline, shared with the drawables created from this state, or null if
+         * the icon was not drawn yet. Drawables take a missing glyph from the GlyphCache.
+         */
+        final GlyphCache.Glyph glyph;
+
+        PrintState(PrintDrawable icon) {
+            this(icon, icon.mContext);
+        }
+
+        PrintState(PrintDrawable icon, Context context) {
+            this.context = context;
+            code = icon.mIconCode;
+            text = code == NO_CODE ? icon.mIconText : null;
+            color = icon.mIconColor;
+            font = icon.mIconFont;
+            fontId = icon.mIconFontId;
+            fontPending = icon.mFontPending;
+            size = icon.mIconSize;
+            colorDuration = icon.mColorDuration;
+            inEditMode = icon.mInEditMode;
+            rasterCache = icon.mRasterCache;
+            drawMode = icon.mDrawMode;
+            glyphSized = icon.mGlyphSized;
+            layers = copyLayers(icon.mLayers);
+            changingConfigurations = icon.getChangingConfigurations();
+            glyph = icon.mGlyph;
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            PrintDrawable icon = new PrintDrawable();
+            apply(icon, context);
+            return icon;
+        }
+
+        void apply(PrintDrawable icon, Context context) {
+            icon.init(context, text, code, color, font, fontId, fontPending, size,
+                    colorDuration, inEditMode, rasterCache, drawMode, glyphSized,
+                    copyLayers(layers));
+            icon.mGlyph = glyph;
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return changingConfigurations;
+        }
+    }
+
+    private static Layer[] copyLayers(Layer[] layers) {
+        if (layers == null) {
+            return null;
+        }
+        Layer[] copy = new Layer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            copy[i] = new Layer(layers[i]);
+        }
+        return copy;
+    }
+
     /**
      * Fluent API for creating {@link PrintDrawable} instances.
      */
@@ -251,11 +927,18 @@ public class PrintDrawable extends Drawable implements IPrint {
         private final Context mContext;
 
         private CharSequence mIconText;
+        private int mIconCode = NO_CODE;
         private ColorStateList mIconColor;
         private Typeface mIconFont;
+        private int mIconFontId = FontRegistry.NO_ID;
         private int mIconSize;
 
         private boolean mInEditMode = false;
+        private int mColorDuration;
+        private boolean mRasterCache = false;
+        private int mDrawMode = DRAW_MODE_AUTO;
+        private boolean mGlyphSized = false;
+        private ArrayList<Layer> mLayers;
 
         /**
          * Start building a new {@link PrintDrawable} instance.
@@ -273,11 +956,14 @@ public class PrintDrawable extends Drawable implements IPrint {
         }
 
         public Builder iconCode(int code) {
-            return iconText(new String(Character.toChars(code)));
+            mIconText = null;
+            mIconCode = code;
+            return this;
         }
 
         public Builder iconText(CharSequence text) {
             mIconText = text;
+            mIconCode = NO_CODE;
             return this;
         }
 
@@ -297,6 +983,21 @@ public class PrintDrawable extends Drawable implements IPrint {
             return this;
         }
 
+        /**
+         * Animate the icon color when the state of the icon changes, e.g. when it is pressed
+         * or selected. Only the paint color is animated, the glyph is never rebuilt.
+         *
+         * @param duration The duration of color transitions in milliseconds, or 0 to change
+         *                 colors immediately.
+         */
+        public Builder iconColorDuration(int duration) {
+            if (duration < 0) {
+                throw new IllegalArgumentException("Duration must not be negative.");
+            }
+            mColorDuration = duration;
+            return this;
+        }
+
         public Builder iconSizeRes(@DimenRes int resId) {
             return iconSize(TypedValue.COMPLEX_UNIT_PX,
                     mContext.getResources().getDimensionPixelSize(resId));
@@ -312,8 +1013,29 @@ public class PrintDrawable extends Drawable implements IPrint {
             return this;
         }
 
+        /**
+         * Sets the iconic font from assets, or a font registered in {@link PrintConfig}
+         * under the given alias. The font is loaded when the icon is first drawn.
+         */
         public Builder iconFont(String assetsPath) {
-            return iconFont(TypefaceManager.load(mContext.getAssets(), assetsPath));
+            if (assetsPath == null) {
+                throw new IllegalArgumentException("Font must not be null.");
+            }
+            return iconFontId(FontRegistry.obtainId(assetsPath));
+        }
+
+        /**
+         * Sets the iconic font registered in {@link PrintConfig}.
+         * The font is loaded when the icon is first drawn.
+         *
+         * @throws IllegalArgumentException if no font is registered under the id.
+         * @see PrintConfig#register(String, String)
+         */
+        public Builder iconFontId(int id) {
+            FontRegistry.checkId(id);
+            mIconFont = null;
+            mIconFontId = id;
+            return this;
         }
 
         public Builder iconFont(Typeface font) {
@@ -321,6 +1043,88 @@ public class PrintDrawable extends Drawable implements IPrint {
                 throw new IllegalArgumentException("Font must not be null.");
             }
             mIconFont = font;
+            mIconFontId = FontRegistry.NO_ID;
+            return this;
+        }
+
+        /**
+         * Render the glyph once into an alpha bitmap atlas shared by all icons of the same font
+         * and size, and draw it from the atlas afterwards instead of rasterizing the glyph
+         * outline on every draw. The glyph is rasterized again only when the icon text, font
+         * or size changes, or after the atlas has been trimmed.
+         *
+         * @see PrintConfig#onTrimMemory(int)
+         */
+        public Builder rasterCache(boolean rasterCache) {
+            mRasterCache = rasterCache;
+            return this;
+        }
+
+        /**
+         * Set how the icon is drawn: {@link #DRAW_MODE_AUTO}, {@link #DRAW_MODE_PATH}
+         * or {@link #DRAW_MODE_TEXT}. Icons drawn as text ignore {@link #rasterCache(boolean)}.
+         */
+        public Builder drawMode(int drawMode) {
+            if (drawMode != DRAW_MODE_AUTO && drawMode != DRAW_MODE_PATH && drawMode != DRAW_MODE_TEXT) {
+                throw new IllegalArgumentException("Unknown draw mode: " + drawMode);
+            }
+            mDrawMode = drawMode;
+            return this;
+        }
+
+        /**
+         * Report the size of the glyph as the intrinsic size of the icon, rather than a square
+         * of the icon size, so that views wrap glyphs which are not square. The glyph is measured
+         * once its font is loaded, and only for icons without layers.
+         */
+        public Builder glyphSized(boolean glyphSized) {
+            mGlyphSized = glyphSized;
+            return this;
+        }
+
+        /**
+         * Add a glyph drawn on top of the icon, e.g. to combine an outline glyph with a filled
+         * one of another color. Layers are drawn in the order they are added, centered like
+         * the icon, with the icon size and font.
+         *
+         * @see #layer(int, ColorStateList, String)
+         */
+        public Builder layer(int code, int color) {
+            return layer(code, ColorStateList.valueOf(color));
+        }
+
+        /**
+         * Add a glyph drawn on top of the icon.
+         *
+         * @see #layer(int, ColorStateList, String)
+         */
+        public Builder layer(int code, ColorStateList colors) {
+            return addLayer(code, colors, FontRegistry.NO_ID);
+        }
+
+        /**
+         * Add a glyph drawn on top of the icon with its own font.
+         *
+         * @param code   The char code of the glyph.
+         * @param colors The colors of the glyph.
+         * @param font   The file name of the font in the assets directory,
+         *               or the alias of a font registered in {@link PrintConfig}.
+         */
+        public Builder layer(int code, ColorStateList colors, String font) {
+            if (font == null) {
+                throw new IllegalArgumentException("Font must not be null.");
+            }
+            return addLayer(code, colors, FontRegistry.obtainId(font));
+        }
+
+        private Builder addLayer(int code, ColorStateList colors, int fontId) {
+            if (colors == null) {
+                throw new IllegalArgumentException("Color must not be null.");
+            }
+            if (mLayers == null) {
+                mLayers = new ArrayList<>();
+            }
+            mLayers.add(new Layer(code, colors, fontId));
             return this;
         }
 
@@ -333,16 +1137,29 @@ public class PrintDrawable extends Drawable implements IPrint {
          * Create the {@link PrintDrawable} instance.
          */
         public PrintDrawable build() {
-            if (mIconFont == null) {
+            Typeface iconFont = mIconFont;
+            boolean fontPending = mIconFontId != FontRegistry.NO_ID;
+            if (iconFont == null && !fontPending) {
                 PrintConfig config = PrintConfig.get();
                 if (config.isFontSet()) {
-                    mIconFont = config.getFont();
+                    iconFont = config.getFont();
+                    // the default font is still loading in background
+                    fontPending = iconFont == null;
                 } else {
                     Log.w("Print", "The iconic font is not set.");
                 }
             }
 
-            return new PrintDrawable(mContext, mIconText, mIconColor, mIconFont, mIconSize, mInEditMode);
+            // each drawable keeps its own layer glyphs and colors
+            Layer[] layers = mLayers != null
+                    ? copyLayers(mLayers.toArray(new Layer[mLayers.size()])) : null;
+
+            PrintDrawablePool pool = PrintConfig.getDrawablePool();
+            PrintDrawable icon = pool != null ? pool.obtain() : new PrintDrawable();
+            icon.init(mContext, mIconText, mIconCode, mIconColor, iconFont, mIconFontId,
+                    fontPending, mIconSize, mColorDuration, mInEditMode, mRasterCache, mDrawMode,
+                    mGlyphSized, layers);
+            return icon;
         }
     }
 
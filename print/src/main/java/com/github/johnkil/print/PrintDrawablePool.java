@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of {@link PrintDrawable} instances, to avoid allocating a new drawable with its paint
+ * for each icon. Pooling is enabled with {@link PrintConfig#setDrawablePool(PrintDrawablePool)},
+ * after which {@link PrintDrawable.Builder#build()} and the inflation of print views take
+ * drawables from the pool.
+ * <p/>
+ * Drawables are returned to the pool with {@link #release(PrintDrawable)}, or
+ * {@link #release(ImageView)} when a view displaying an icon is detached for good,
+ * e.g. in {@code RecyclerView.Adapter.onViewRecycled()} of views which are discarded.
+ */
+public class PrintDrawablePool {
+
+    private final ArrayList<PrintDrawable> mPool;
+    private final int mMaxSize;
+
+    private int mCreateCount;
+    private int mReuseCount;
+    private int mReleaseCount;
+    private int mDropCount;
+
+    /**
+     * @param maxSize The maximum number of drawables kept in the pool.
+     */
+    public PrintDrawablePool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive.");
+        }
+        mMaxSize = maxSize;
+        mPool = new ArrayList<>(Math.min(maxSize, 16));
+    }
+
+    /**
+     * Take a drawable from the pool, or create a new one if the pool is empty.
+     */
+    synchronized PrintDrawable obtain() {
+        int size = mPool.size();
+        if (size > 0) {
+            mReuseCount++;
+            PrintDrawable icon = mPool.remove(size - 1);
+            icon.mReleased = false;
+            return icon;
+        }
+        mCreateCount++;
+        return new PrintDrawable();
+    }
+
+    /**
+     * Return the drawable to the pool. The drawable must not be used afterwards.
+     *
+     * @throws IllegalStateException if the drawable has already been released.
+     */
+    public void release(PrintDrawable icon) {
+        if (icon == null) {
+            throw new IllegalArgumentException("Icon must not be null.");
+        }
+        synchronized (this) {
+            // a drawable pooled twice would be handed out to two views
+            if (icon.mReleased) {
+                throw new IllegalStateException("Icon has already been released.");
+            }
+            icon.mReleased = true;
+        }
+        icon.recycle();
+        synchronized (this) {
+            mReleaseCount++;
+            if (mPool.size() < mMaxSize) {
+                mPool.add(icon);
+            } else {
+                mDropCount++;
+            }
+        }
+    }
+
+    /**
+     * Remove the icon from the view and return it to the pool.
+     * The view must not be used afterwards.
+     */
+    public void release(ImageView view) {
+        Drawable icon = view.getDrawable();
+        if (icon instanceof PrintDrawable) {
+            view.setImageDrawable(null);
+            release((PrintDrawable) icon);
+        }
+    }
+
+    /**
+     * Remove all drawables from the pool.
+     */
+    public synchronized void clear() {
+        mPool.clear();
+    }
+
+    /**
+     * Return the number of drawables currently in the pool.
+     */
+    public synchronized int size() {
+        return mPool.size();
+    }
+
+    /**
+     * Return the maximum number of drawables kept in the pool.
+     */
+    public int maxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Return the number of drawables created because the pool was empty.
+     */
+    public synchronized int createCount() {
+        return mCreateCount;
+    }
+
+    /**
+     * Return the number of drawables taken from the pool.
+     */
+    public synchronized int reuseCount() {
+        return mReuseCount;
+    }
+
+    /**
+     * Return the number of drawables returned to the pool.
+     */
+    public synchronized int releaseCount() {
+        return mReleaseCount;
+    }
+
+    /**
+     * Return the number of released drawables dropped because the pool was full.
+     */
+    public synchronized int dropCount() {
+        return mDropCount;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receives rendering measurements of the library, once set with
+ * {@link PrintConfig#setMetrics(PrintMetrics)}. Nothing is measured while no listener is set.
+ * <p/>
+ * Draws and glyph lookups are reported on the main thread, font loads on the thread loading
+ * the font, which may be a background thread.
+ *
+ * @see Counters
+ */
+public interface PrintMetrics {
+
+    /**
+     * Called after an icon is drawn.
+     *
+     * @param nanos The duration of {@link PrintDrawable#draw(android.graphics.Canvas)}.
+     */
+    void onDraw(long nanos);
+
+    /**
+     * Called when the outline of a glyph is found in the glyph cache.
+     */
+    void onGlyphCacheHit();
+
+    /**
+     * Called when the outline of a glyph is missing from the glyph cache and is built.
+     *
+     * @param nanos The duration of the build.
+     */
+    void onPathBuild(long nanos);
+
+    /**
+     * Called after a font is loaded.
+     *
+     * @param source The path of the font in assets, or the key of its source.
+     * @param nanos  The duration of the load.
+     */
+    void onFontLoad(String source, long nanos);
+
+    /**
+     * Metrics which sum up the measurements, e.g. to be reported periodically.
+     */
+    class Counters implements PrintMetrics {
+        private final AtomicLong mDrawCount = new AtomicLong();
+        private final AtomicLong mDrawNanos = new AtomicLong();
+        private final AtomicLong mGlyphCacheHitCount = new AtomicLong();
+        private final AtomicLong mPathBuildCount = new AtomicLong();
+        private final AtomicLong mPathBuildNanos = new AtomicLong();
+        private final ConcurrentHashMap<String, Long> mFontLoadNanos = new ConcurrentHashMap<>();
+
+        @Override
+        public void onDraw(long nanos) {
+            mDrawCount.incrementAndGet();
+            mDrawNanos.addAndGet(nanos);
+        }
+
+        @Override
+        public void onGlyphCacheHit() {
+            mGlyphCacheHitCount.incrementAndGet();
+        }
+
+        @Override
+        public void onPathBuild(long nanos) {
+            mPathBuildCount.incrementAndGet();
+            mPathBuildNanos.addAndGet(nanos);
+        }
+
+        @Override
+        public void onFontLoad(String source, long nanos) {
+            mFontLoadNanos.put(source, nanos);
+        }
+
+        public long getDrawCount() {
+            return mDrawCount.get();
+        }
+
+        public long getDrawNanos() {
+            return mDrawNanos.get();
+        }
+
+        public long getGlyphCacheHitCount() {
+            return mGlyphCacheHitCount.get();
+        }
+
+        public long getPathBuildCount() {
+            return mPathBuildCount.get();
+        }
+
+        public long getPathBuildNanos() {
+            return mPathBuildNanos.get();
+        }
+
+        /**
+         * @return the share of glyph lookups found in the cache, or 0 if there were none.
+         */
+        public float getGlyphCacheHitRatio() {
+            long hits = mGlyphCacheHitCount.get();
+            long lookups = hits + mPathBuildCount.get();
+            return lookups > 0 ? (float) hits / lookups : 0f;
+        }
+
+        /**
+         * @return the load durations in nanoseconds, by font path or source key.
+         */
+        public Map<String, Long> getFontLoadNanos() {
+            return new HashMap<>(mFontLoadNanos);
+        }
+
+        /**
+         * Reset all counters to zero.
+         */
+        public void reset() {
+            mDrawCount.set(0);
+            mDrawNanos.set(0);
+            mGlyphCacheHitCount.set(0);
+            mPathBuildCount.set(0);
+            mPathBuildNanos.set(0);
+            mFontLoadNanos.clear();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.text.style.ReplacementSpan;
+
+/**
+ * A span drawing an icon inline with the text, e.g. to show an icon next to a label
+ * in a single {@link android.widget.TextView}.
+ * <pre>
+ * SpannableStringBuilder text = new SpannableStringBuilder("  Like");
+ * text.setSpan(new PrintSpan(icon), 0, 1, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+ * </pre>
+ * The icon is centered on the text of the line, which grows if the icon is taller than the text.
+ * Icons share their glyph outlines with all other icons, and measuring the span allocates nothing.
+ * <p/>
+ * The span does not invalidate the text view, so icons should use a font which is already loaded
+ * or exported at build time, and the text should be set again after changing the icon.
+ */
+public class PrintSpan extends ReplacementSpan {
+
+    private final PrintDrawable mIcon;
+
+    /**
+     * The icon size the text was laid out with, so that the icon is drawn in the space measured
+     * for it even if its intrinsic size changes in between, e.g. once its font is loaded.
+     */
+    private int mWidth = -1;
+    private int mHeight;
+
+    /**
+     * @param icon The icon to draw in place of the spanned text.
+     */
+    public PrintSpan(PrintDrawable icon) {
+        if (icon == null) {
+            throw new IllegalArgumentException("Icon must not be null.");
+        }
+        mIcon = icon;
+    }
+
+    /**
+     * @return the icon drawn by the span.
+     */
+    public PrintDrawable getIcon() {
+        return mIcon;
+    }
+
+    @Override
+    public int getSize(Paint paint, CharSequence text, int start, int end, Paint.FontMetricsInt fm) {
+        mWidth = mIcon.getIntrinsicWidth();
+        mHeight = mIcon.getIntrinsicHeight();
+        if (fm != null) {
+            paint.getFontMetricsInt(fm);
+            int extra = mHeight - (fm.descent - fm.ascent);
+            if (extra > 0) {
+                fm.ascent -= extra / 2;
+                fm.descent += extra - extra / 2;
+                fm.top = Math.min(fm.top, fm.ascent);
+                fm.bottom = Math.max(fm.bottom, fm.descent);
+            }
+        }
+        return mWidth;
+    }
+
+    @Override
+    public void draw(Canvas canvas, CharSequence text, int start, int end,
+                     float x, int top, int y, int bottom, Paint paint) {
+        if (mWidth == -1) {
+            getSize(paint, text, start, end, null);
+        }
+        int width = mWidth;
+        int height = mHeight;
+        mIcon.setBounds(0, 0, width, height);
+
+        float textCenterY = y + (paint.ascent() + paint.descent()) / 2;
+        float offsetY = textCenterY - height / 2f;
+        canvas.translate(x, offsetY);
+        mIcon.draw(canvas);
+        canvas.translate(-x, -offsetY);
+    }
+
+}
@@ -120,15 +120,11 @@ public class PrintView extends ImageView implements IPrintView {
     @Override
     public void setIconSizeDp(float size) {
         getIcon().setIconSizeDp(size);
-        // hack for calling resizeFromDrawable()
-        setSelected(isSelected());
     }
 
     @Override
     public void setIconSize(int unit, float size) {
         getIcon().setIconSize(unit, size);
-        // hack for calling resizeFromDrawable()
-        setSelected(isSelected());
     }
 
     @Override
@@ -141,6 +137,11 @@ public class PrintView extends ImageView implements IPrintView {
         getIcon().setIconFont(path);
     }
 
+    @Override
+    public void setIconFontId(int id) {
+        getIcon().setIconFontId(id);
+    }
+
     @Override
     public void setIconFont(Typeface font) {
         getIcon().setIconFont(font);
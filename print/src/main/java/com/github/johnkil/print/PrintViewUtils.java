@@ -21,6 +21,7 @@ import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
 import android.util.AttributeSet;
 import android.util.TypedValue;
+import android.widget.ImageView;
 
 class PrintViewUtils {
 
@@ -32,8 +33,18 @@ class PrintViewUtils {
      * @param attrs      The attributes of the XML tag that is inflating the view.
      * @param inEditMode Indicates whether this View is currently in edit mode.
      * @return The icon to display.
+     * @see IconSpecCache
      */
     static PrintDrawable initIcon(Context context, AttributeSet attrs, boolean inEditMode) {
+        String key = null;
+        if (attrs != null && !inEditMode) {
+            key = IconSpecCache.key(attrs);
+            PrintDrawable icon = IconSpecCache.get(context, key);
+            if (icon != null) {
+                return icon;
+            }
+        }
+
         PrintDrawable.Builder iconBuilder = new PrintDrawable.Builder(context);
 
         if (attrs != null) {
@@ -51,7 +62,7 @@ class PrintViewUtils {
 
             if (!inEditMode && a.hasValue(R.styleable.PrintView_print_iconFont)) {
                 String iconFontPath = a.getString(R.styleable.PrintView_print_iconFont);
-                iconBuilder.iconFont(TypefaceManager.load(context.getAssets(), iconFontPath));
+                iconBuilder.iconFont(iconFontPath);
             }
 
             if (a.hasValue(R.styleable.PrintView_print_iconColor)) {
@@ -59,6 +70,9 @@ class PrintViewUtils {
                 iconBuilder.iconColor(iconColor);
             }
 
+            int colorDuration = a.getInteger(R.styleable.PrintView_print_iconColorDuration, 0);
+            iconBuilder.iconColorDuration(colorDuration);
+
             int iconSize = a.getDimensionPixelSize(R.styleable.PrintView_print_iconSize, 0);
             iconBuilder.iconSize(TypedValue.COMPLEX_UNIT_PX, iconSize);
 
@@ -67,7 +81,25 @@ class PrintViewUtils {
             a.recycle();
         }
 
-        return iconBuilder.build();
+        PrintDrawable icon = iconBuilder.build();
+        if (key != null) {
+            IconSpecCache.put(context, key, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Update the view after the size of its icon has changed. The view caches the size
+     * of its drawable, so the icon is set again to refresh it and request a layout.
+     *
+     * @param view The view displaying the icon.
+     * @param icon The icon whose intrinsic size has changed.
+     */
+    static void updateIconSize(ImageView view, PrintDrawable icon) {
+        if (view.getDrawable() == icon) {
+            view.setImageDrawable(null);
+            view.setImageDrawable(icon);
+        }
     }
 
     private PrintViewUtils() {
@@ -16,22 +16,65 @@
 
 package com.github.johnkil.print;
 
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
+import android.content.res.Resources;
 import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
-import java.util.HashMap;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * A helper loading {@link android.graphics.Typeface} avoiding the leak of the font when loaded
  * by multiple calls to {@link android.graphics.Typeface#createFromAsset(android.content.res.AssetManager, String)}
  * on pre-ICS versions.
+ * <p/>
+ * Cached fonts are read without locking, and each font is created only once
+ * even if several threads request it at the same time.
+ * <p/>
+ * Fonts from assets are cached by their path, and fonts from other {@link Source}s
+ * by the key of the source.
  */
 class TypefaceManager {
 
     /**
      * The cached typefaces.
      */
-    private static final HashMap<String, Typeface> sTypefaces = new HashMap<>();
+    private static final ConcurrentHashMap<String, Entry> sTypefaces = new ConcurrentHashMap<>();
+
+    /**
+     * The directory of the cache directory holding fonts copied from streams.
+     */
+    private static final String CACHE_DIR = "print-fonts";
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Loads fonts in background.
+     */
+    private static final Executor sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Print-FontLoader");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
 
     /**
      * Load a typeface from the specified font data.
@@ -40,19 +83,252 @@ class TypefaceManager {
      * @param path   The file name of the font data in the assets directory.
      */
     static Typeface load(AssetManager assets, String path) {
-        synchronized (sTypefaces) {
-            Typeface typeface;
-            if (sTypefaces.containsKey(path)) {
-                typeface = sTypefaces.get(path);
-            } else {
-                typeface = Typeface.createFromAsset(assets, path);
-                sTypefaces.put(path, typeface);
+        return obtainEntry(path).get(assets, path, null);
+    }
+
+    /**
+     * Load a typeface from the specified source.
+     */
+    static Typeface load(Source source) {
+        return obtainEntry(source.key).get(null, null, source);
+    }
+
+    private static Entry obtainEntry(String key) {
+        Entry entry = sTypefaces.get(key);
+        if (entry == null) {
+            Entry newEntry = new Entry();
+            entry = sTypefaces.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Load a typeface from the specified font data on a background thread.
+     *
+     * @param assets   The application's asset manager.
+     * @param path     The file name of the font data in the assets directory.
+     * @param callback Posted to the main thread once the typeface is loaded, or once loading it
+     *                 has failed, may be null.
+     */
+    static void loadAsync(final AssetManager assets, final String path, final Runnable callback) {
+        sExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load(assets, path);
+                } catch (RuntimeException e) {
+                    Log.e("Print", "Unable to load the iconic font " + path, e);
+                    // reported by peek(), so that icons waiting for the font stop waiting
+                    obtainEntry(path).mFailure = e;
+                }
+                if (callback != null) {
+                    sMainHandler.post(callback);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return the typeface if it is already loaded, or null otherwise.
+     *
+     * @param path The file name of the font data in the assets directory.
+     * @throws RuntimeException if loading the typeface in background has failed.
+     */
+    static Typeface peek(String path) {
+        Entry entry = sTypefaces.get(path);
+        if (entry == null) {
+            return null;
+        }
+        Typeface typeface = entry.mTypeface;
+        if (typeface == null && entry.mFailure != null) {
+            throw new RuntimeException("Unable to load the iconic font " + path, entry.mFailure);
+        }
+        return typeface;
+    }
+
+    /**
+     * A font file, which is mapped by the native font loader rather than read into the heap.
+     */
+    static Source fileSource(final File file) {
+        return new Source("file:" + file.getAbsolutePath()) {
+            @Override
+            Typeface create() {
+                return Typeface.createFromFile(file);
+            }
+        };
+    }
+
+    /**
+     * A font in {@code res/raw}, streamed to the cache directory on first use and loaded from there.
+     * The cached file is named after the version of the application, so it is written again
+     * only after an update.
+     */
+    static Source rawSource(Context context, final int rawResId) {
+        final Resources res = context.getResources();
+        final File cacheDir = context.getCacheDir();
+        final String version = appVersion(context);
+        return new Source("raw:" + res.getResourceName(rawResId)) {
+            @Override
+            Typeface create() throws IOException {
+                File file = cacheFile(cacheDir, key, version);
+                if (!isCached(file)) {
+                    InputStream in = res.openRawResource(rawResId);
+                    try {
+                        writeCache(in, file);
+                    } finally {
+                        in.close();
+                    }
+                }
+                return Typeface.createFromFile(file);
+            }
+        };
+    }
+
+    /**
+     * A font read from the file descriptor, streamed to the cache directory on first use and loaded
+     * from there. The descriptor is read from its current position, and is not closed. The cached
+     * file is reused as long as it exists, so the key must change with the font data.
+     *
+     * @param key A stable identifier of the font data, e.g. the name and version of the downloaded bundle.
+     */
+    static Source descriptorSource(Context context, final FileDescriptor fd, String key) {
+        final File cacheDir = context.getCacheDir();
+        return new Source("fd:" + key) {
+            @Override
+            Typeface create() throws IOException {
+                File file = cacheFile(cacheDir, key, null);
+                if (!isCached(file)) {
+                    // closing the stream would close the descriptor, which is owned by the caller
+                    writeCache(new FileInputStream(fd), file);
+                }
+                return Typeface.createFromFile(file);
+            }
+        };
+    }
+
+    /**
+     * Return the version of the application, which changes with every install or update.
+     */
+    private static String appVersion(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            long installTime = new File(info.applicationInfo.sourceDir).lastModified();
+            return info.versionCode + "-" + installTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            // the package of the application is always found
+            return "0";
+        }
+    }
+
+    /**
+     * Return the file of the cache directory holding the font data of the source.
+     *
+     * @param version The version of the font data, or null if the key changes with the data.
+     */
+    private static File cacheFile(File cacheDir, String key, String version) {
+        String name = key.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (version != null) {
+            name += "@" + version;
+        }
+        return new File(new File(cacheDir, CACHE_DIR), name);
+    }
+
+    /**
+     * Return true if the font data has been written. Files are written under a temporary name
+     * and renamed once complete, so an existing file is always complete.
+     */
+    private static boolean isCached(File file) {
+        return file.isFile() && file.length() > 0;
+    }
+
+    /**
+     * Write the font data to the cache file, and delete the files of previous versions.
+     */
+    private static void writeCache(InputStream in, File file) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create " + dir);
+        }
+        File tmpFile = new File(dir, file.getName() + ".tmp");
+        OutputStream out = new FileOutputStream(tmpFile);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            throw new IOException("Unable to write " + file);
+        }
+
+        int versionStart = file.getName().lastIndexOf('@');
+        if (versionStart != -1) {
+            String prefix = file.getName().substring(0, versionStart + 1);
+            File[] files = dir.listFiles();
+            for (File oldFile : files != null ? files : new File[0]) {
+                if (oldFile.getName().startsWith(prefix) && !oldFile.equals(file)) {
+                    oldFile.delete();
+                }
             }
-            return typeface;
         }
     }
 
     private TypefaceManager() {
     }
 
+    /**
+     * The font data of a typeface other than an asset, identified by a stable key.
+     */
+    abstract static class Source {
+        final String key;
+
+        Source(String key) {
+            this.key = key;
+        }
+
+        abstract Typeface create() throws IOException;
+    }
+
+    /**
+     * A cached typeface, created on first access.
+     */
+    private static final class Entry {
+        private volatile Typeface mTypeface;
+        private volatile RuntimeException mFailure;
+
+        Typeface get(AssetManager assets, String path, Source source) {
+            Typeface typeface = mTypeface;
+            if (typeface == null) {
+                synchronized (this) {
+                    typeface = mTypeface;
+                    if (typeface == null) {
+                        long start = System.nanoTime();
+                        typeface = source != null ? create(source) : Typeface.createFromAsset(assets, path);
+                        PrintMetrics metrics = PrintConfig.getMetrics();
+                        if (metrics != null) {
+                            metrics.onFontLoad(source != null ? source.key : path, System.nanoTime() - start);
+                        }
+                        mTypeface = typeface;
+                    }
+                }
+            }
+            return typeface;
+        }
+
+        private static Typeface create(Source source) {
+            try {
+                return source.create();
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read the font " + source.key, e);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.johnkil.print;
+
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.CallbackFilter;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+import net.sf.cglib.proxy.NoOp;
+
+import org.objenesis.ObjenesisStd;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fakes of framework classes for the benchmarks. Unlike Mockito mocks, whose calls record
+ * a stack trace each and cost microseconds, a fake answers about as fast as a virtual call,
+ * so the benchmarks measure the library rather than the mocks.
+ * <p/>
+ * Fakes are generated subclasses, since the classes have final methods or hidden constructors
+ * in the SDK, which the mockable Android jar used on the JVM strips. Methods without an answer
+ * keep the behavior of the mockable jar, i.e. return default values.
+ */
+final class Fakes {
+
+    /**
+     * The result of a faked method.
+     */
+    interface Answer {
+        Object answer(Object fake, Object[] args);
+    }
+
+    /**
+     * Answers for faked methods, by method name.
+     */
+    static final class Answers {
+        private final Map<String, Answer> mAnswers = new HashMap<>();
+
+        Answers on(String method, Answer answer) {
+            mAnswers.put(method, answer);
+            return this;
+        }
+
+        Answers on(String method, final Object value) {
+            return on(method, new Answer() {
+                @Override
+                public Object answer(Object fake, Object[] args) {
+                    return value;
+                }
+            });
+        }
+
+        /**
+         * Compare fakes by identity, like mocks, rather than by the default values
+         * of the mockable jar, which never equal.
+         */
+        Answers identity() {
+            return on("equals", new Answer() {
+                @Override
+                public Object answer(Object fake, Object[] args) {
+                    return fake == args[0];
+                }
+            }).on("hashCode", new Answer() {
+                @Override
+                public Object answer(Object fake, Object[] args) {
+                    return System.identityHashCode(fake);
+                }
+            });
+        }
+    }
+
+    /**
+     * Create a fake of the type. The constructor is run if the type has an accessible one
+     * without parameters, and skipped otherwise.
+     */
+    static <T> T fake(Class<T> type, final Answers answers) {
+        Enhancer enhancer = new Enhancer() {
+            @Override
+            @SuppressWarnings("rawtypes")
+            protected void filterConstructors(Class type, List constructors) {
+                // keep hidden constructors too, fakes without a default one are not constructed
+            }
+        };
+        enhancer.setSuperclass(type);
+        enhancer.setUseCache(false);
+        // one callback per faked method, so that calls need no lookup
+        final List<String> methods = new ArrayList<>(answers.mAnswers.keySet());
+        Callback[] callbacks = new Callback[methods.size() + 1];
+        Class<?>[] callbackTypes = new Class<?>[callbacks.length];
+        callbacks[0] = NoOp.INSTANCE;
+        callbackTypes[0] = NoOp.class;
+        for (int i = 0; i < methods.size(); i++) {
+            final Answer answer = answers.mAnswers.get(methods.get(i));
+            callbacks[i + 1] = new MethodInterceptor() {
+                @Override
+                public Object intercept(Object fake, Method method, Object[] args, MethodProxy proxy) {
+                    return answer.answer(fake, args);
+                }
+            };
+            callbackTypes[i + 1] = MethodInterceptor.class;
+        }
+        enhancer.setCallbackFilter(new CallbackFilter() {
+            @Override
+            public int accept(Method method) {
+                return methods.indexOf(method.getName()) + 1;
+            }
+        });
+        enhancer.setCallbackTypes(callbackTypes);
+        Class<?> fakeType = enhancer.createClass();
+        Enhancer.registerStaticCallbacks(fakeType, callbacks);
+        if (hasDefaultConstructor(type)) {
+            try {
+                return type.cast(fakeType.newInstance());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return type.cast(new ObjenesisStd().newInstance(fakeType));
+    }
+
+    static <T> T fake(Class<T> type) {
+        return fake(type, new Answers());
+    }
+
+    private static boolean hasDefaultConstructor(Class<?> type) {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.getParameterTypes().length == 0
+                    && !Modifier.isPrivate(constructor.getModifiers())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Fakes() {
+    }
+
+}
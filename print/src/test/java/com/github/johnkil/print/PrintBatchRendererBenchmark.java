@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.johnkil.print;
+
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.johnkil.print.Fakes.fake;
+
+/**
+ * A frame of a chart or map overlay: grouping the icons by size and color and positioning them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintBatchRendererBenchmark {
+
+    private static final int[] COLORS = {0xff2196f3, 0xfff44336, 0xff4caf50, 0xffffc107};
+
+    @Param({"100", "1000"})
+    public int count;
+
+    @Param({"1", "16"})
+    public int groups;
+
+    private PrintBatchRenderer mRenderer;
+    private Canvas mCanvas;
+    private int[] mCodes;
+    private float[] mXs;
+    private float[] mYs;
+    private int[] mSizes;
+    private int[] mColors;
+
+    @Setup
+    public void setUp() {
+        mRenderer = new PrintBatchRenderer(fake(Typeface.class, new Fakes.Answers().identity()));
+        mCanvas = new Canvas();
+        mCodes = new int[count];
+        mXs = new float[count];
+        mYs = new float[count];
+        mSizes = new int[count];
+        mColors = new int[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            int group = random.nextInt(groups);
+            mCodes[i] = 0xe000 + random.nextInt(64);
+            mXs[i] = random.nextFloat() * 1080;
+            mYs[i] = random.nextFloat() * 1920;
+            mSizes[i] = 24 + group / COLORS.length * 8;
+            mColors[i] = COLORS[group % COLORS.length];
+        }
+    }
+
+    @Benchmark
+    public void draw() {
+        mRenderer.draw(mCanvas, mCodes, mXs, mYs, mSizes, mColors, count);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrintBatchRendererTest {
+
+    @Test
+    public void sortGroupsBySizeThenColorKeepingArrayOrder() {
+        int[] sizes = {24, 16, 24, 16, 24, 16};
+        int[] colors = {1, 2, 0, 2, 1, 1};
+        int[] order = {0, 1, 2, 3, 4, 5};
+
+        PrintBatchRenderer.sort(order, new int[order.length], 0, order.length, sizes, colors);
+
+        assertArrayEquals(new int[]{5, 1, 3, 2, 0, 4}, order);
+    }
+
+    @Test
+    public void sortOrdersRandomIcons() {
+        Random random = new Random(42);
+        int count = 1000;
+        int[] sizes = new int[count];
+        int[] colors = new int[count];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            sizes[i] = 16 + random.nextInt(4) * 8;
+            colors[i] = random.nextInt(3) - 1;
+            order[i] = i;
+        }
+
+        PrintBatchRenderer.sort(order, new int[count], 0, count, sizes, colors);
+
+        for (int i = 1; i < count; i++) {
+            int a = order[i - 1];
+            int b = order[i];
+            assertTrue(sizes[a] < sizes[b]
+                    || sizes[a] == sizes[b] && (colors[a] < colors[b] || colors[a] == colors[b] && a < b));
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.johnkil.print;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.johnkil.print.Fakes.fake;
+
+/**
+ * Drawing an icon, once its glyph is cached and when its code changes on every frame.
+ * <p/>
+ * The mockable Android jar drops the bounds kept by {@link android.graphics.drawable.Drawable},
+ * so the icon is a fake returning fixed bounds. Canvas calls do nothing on the JVM,
+ * so the benchmarks measure the work done by the icon around them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintDrawableBenchmark {
+
+    private static final int[] CODES = new int[GlyphCache.DEFAULT_MAX_SIZE * 2];
+
+    static {
+        for (int i = 0; i < CODES.length; i++) {
+            CODES[i] = 0xe000 + i;
+        }
+    }
+
+    private PrintDrawable mIcon;
+    private Canvas mCanvas;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        // the builder takes the fake icon from the pool
+        PrintDrawablePool pool = new PrintDrawablePool(1);
+        pool.release(fake(PrintDrawable.class, new Fakes.Answers().on("getBounds", new Rect(0, 0, 48, 48))));
+        PrintConfig.setDrawablePool(pool);
+        try {
+            mIcon = new PrintDrawable.Builder(fake(Context.class))
+                    .iconCode(0xe800)
+                    .iconFont(fake(Typeface.class, new Fakes.Answers().identity()))
+                    .iconColor(fake(ColorStateList.class))
+                    .build();
+        } finally {
+            PrintConfig.setDrawablePool(null);
+        }
+        mCanvas = new Canvas();
+        // cache the glyph
+        mIcon.draw(mCanvas);
+    }
+
+    @Benchmark
+    public void draw() {
+        mIcon.draw(mCanvas);
+    }
+
+    @Benchmark
+    public void drawCodeChurn() {
+        // more codes than the glyph cache holds, so every draw builds a glyph
+        mIcon.setIconCode(CODES[mNext]);
+        mNext = (mNext + 1) % CODES.length;
+        mIcon.draw(mCanvas);
+    }
+
+}
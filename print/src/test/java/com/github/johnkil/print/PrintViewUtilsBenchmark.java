@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.johnkil.print;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.johnkil.print.Fakes.fake;
+
+/**
+ * Inflating the icon of a view from its attributes, e.g. for each bound list row: building
+ * the key of the attributes, parsing them and building the icon.
+ * <p/>
+ * The context, resources and typed array are {@link Fakes}. Each inflation misses the icon
+ * cache, which is cleared.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrintViewUtilsBenchmark {
+
+    private Context mContext;
+    private AttributeSet mAttrs;
+
+    @Setup
+    public void setUp() {
+        // a typical icon tag: layout and framework attributes mixed with the icon attributes
+        mAttrs = new FakeAttributeSet(
+                new int[]{0x010100d0, 0x010100f4, 0x010100f5, R.attr.print_iconCode,
+                        R.attr.print_iconColor, R.attr.print_iconSize, R.attr.print_iconFont, 0x01010273},
+                new String[]{"@2131492949", "-2", "-2", "@2131165213",
+                        "@2131361812", "24.0dip", "fonts/iconic-font.ttf", "@2131165214"});
+
+        final ColorStateList color = fake(ColorStateList.class);
+        final TypedArray a = fake(TypedArray.class, new Fakes.Answers()
+                .on("hasValue", new Fakes.Answer() {
+                    @Override
+                    public Object answer(Object fake, Object[] args) {
+                        int index = (Integer) args[0];
+                        return index == R.styleable.PrintView_print_iconCode
+                                || index == R.styleable.PrintView_print_iconColor
+                                || index == R.styleable.PrintView_print_iconSize
+                                || index == R.styleable.PrintView_print_iconFont;
+                    }
+                })
+                .on("getInteger", new Fakes.Answer() {
+                    @Override
+                    public Object answer(Object fake, Object[] args) {
+                        return (Integer) args[0] == R.styleable.PrintView_print_iconCode ? 0xe800 : args[1];
+                    }
+                })
+                .on("getString", "fonts/iconic-font.ttf")
+                .on("getColorStateList", color)
+                .on("getDimensionPixelSize", 72));
+
+        Resources res = fake(Resources.class, new Fakes.Answers()
+                .on("getConfiguration", new Configuration()));
+        Fakes.Answers contextAnswers = new Fakes.Answers()
+                .on("getResources", res)
+                .on("getTheme", (Object) null)
+                .on("obtainStyledAttributes", a);
+        mContext = fake(Context.class, contextAnswers.on("getApplicationContext", new Fakes.Answer() {
+            @Override
+            public Object answer(Object fake, Object[] args) {
+                return fake;
+            }
+        }));
+    }
+
+    @Benchmark
+    public PrintDrawable initIcon() {
+        IconSpecCache.clear();
+        return PrintViewUtils.initIcon(mContext, mAttrs, false);
+    }
+
+    /**
+     * Attributes parsed from a layout, given by resource id and raw value.
+     */
+    private static final class FakeAttributeSet implements AttributeSet {
+        private final int[] mNameResources;
+        private final String[] mValues;
+
+        FakeAttributeSet(int[] nameResources, String[] values) {
+            mNameResources = nameResources;
+            mValues = values;
+        }
+
+        @Override
+        public int getAttributeCount() {
+            return mNameResources.length;
+        }
+
+        @Override
+        public String getAttributeName(int index) {
+            return Integer.toHexString(mNameResources[index]);
+        }
+
+        @Override
+        public String getAttributeValue(int index) {
+            return mValues[index];
+        }
+
+        @Override
+        public String getAttributeValue(String namespace, String name) {
+            return null;
+        }
+
+        @Override
+        public String getPositionDescription() {
+            return "benchmark";
+        }
+
+        @Override
+        public int getAttributeNameResource(int index) {
+            return mNameResources[index];
+        }
+
+        @Override
+        public int getAttributeListValue(String namespace, String attribute, String[] options, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public boolean getAttributeBooleanValue(String namespace, String attribute, boolean defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeResourceValue(String namespace, String attribute, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeIntValue(String namespace, String attribute, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeUnsignedIntValue(String namespace, String attribute, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public float getAttributeFloatValue(String namespace, String attribute, float defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeListValue(int index, String[] options, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public boolean getAttributeBooleanValue(int index, boolean defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeResourceValue(int index, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeIntValue(int index, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getAttributeUnsignedIntValue(int index, int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public float getAttributeFloatValue(int index, float defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public String getIdAttribute() {
+            return null;
+        }
+
+        @Override
+        public String getClassAttribute() {
+            return null;
+        }
+
+        @Override
+        public int getIdAttributeResourceValue(int defaultValue) {
+            return defaultValue;
+        }
+
+        @Override
+        public int getStyleAttribute() {
+            return 0;
+        }
+    }
+
+}
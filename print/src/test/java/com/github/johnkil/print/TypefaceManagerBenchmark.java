@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.johnkil.print;
+
+import android.graphics.Typeface;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.johnkil.print.Fakes.fake;
+
+/**
+ * The lookup of a loaded font, done by every icon resolving its font, from one thread
+ * and from several threads at once. The contended result needs at least 4 cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypefaceManagerBenchmark {
+
+    private TypefaceManager.Source mSource;
+
+    @Setup
+    public void setUp() {
+        final Typeface font = fake(Typeface.class, new Fakes.Answers().identity());
+        mSource = new TypefaceManager.Source("benchmark:font") {
+            @Override
+            Typeface create() {
+                return font;
+            }
+        };
+        TypefaceManager.load(mSource);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Typeface load() {
+        return TypefaceManager.load(mSource);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Typeface loadContended() {
+        return TypefaceManager.load(mSource);
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014 Evgeny Shishkin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.johnkil.print;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.Typeface;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TypefaceManagerTest {
+
+    private static final int THREADS = 8;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void loadCreatesTypefaceOnceUnderContention() throws Exception {
+        CountingSource source = new CountingSource("test:contention");
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Typeface>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final TypefaceManager.Source threadSource = new CountingSource(source);
+                results.add(executor.submit(new Callable<Typeface>() {
+                    @Override
+                    public Typeface call() throws Exception {
+                        start.await();
+                        return TypefaceManager.load(threadSource);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Typeface> result : results) {
+                assertSame(source.typeface, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, source.createCount.get());
+    }
+
+    @Test
+    public void loadReturnsCachedTypeface() throws Exception {
+        CountingSource source = new CountingSource("test:cached");
+        Typeface typeface = TypefaceManager.load(source);
+        assertSame(typeface, TypefaceManager.load(source));
+        assertSame(typeface, TypefaceManager.peek("test:cached"));
+        assertEquals(1, source.createCount.get());
+    }
+
+    @Test
+    public void sourcesAreCachedByKey() throws Exception {
+        assertNull(TypefaceManager.peek("test:first"));
+        Typeface first = TypefaceManager.load(new CountingSource("test:first"));
+        Typeface second = TypefaceManager.load(new CountingSource("test:second"));
+        assertNotSame(first, second);
+        assertSame(first, TypefaceManager.peek("test:first"));
+    }
+
+    @Test
+    public void rawSourceWritesCacheFileOnce() throws Exception {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        File apk = mTemporaryFolder.newFile("app.apk");
+        Context context = mockContext(cacheDir, apk, 1);
+
+        TypefaceManager.rawSource(context, 1).create();
+        // a new process creates a new source
+        TypefaceManager.rawSource(context, 1).create();
+
+        verify(context.getResources(), times(1)).openRawResource(1);
+        assertEquals(1, new File(cacheDir, "print-fonts").list().length);
+    }
+
+    @Test
+    public void rawSourceReplacesCacheFileAfterUpdate() throws Exception {
+        File cacheDir = mTemporaryFolder.newFolder("cache");
+        File apk = mTemporaryFolder.newFile("app.apk");
+        TypefaceManager.rawSource(mockContext(cacheDir, apk, 1), 1).create();
+
+        Context updatedContext = mockContext(cacheDir, apk, 2);
+        TypefaceManager.rawSource(updatedContext, 1).create();
+
+        verify(updatedContext.getResources(), times(1)).openRawResource(1);
+        String[] files = new File(cacheDir, "print-fonts").list();
+        assertEquals(1, files.length);
+        assertTrue(files[0].contains("@2-"));
+    }
+
+    private static Context mockContext(File cacheDir, File apk, int versionCode) throws Exception {
+        PackageInfo info = new PackageInfo();
+        info.versionCode = versionCode;
+        info.applicationInfo = new ApplicationInfo();
+        info.applicationInfo.sourceDir = apk.getPath();
+        PackageManager packageManager = mock(PackageManager.class);
+        when(packageManager.getPackageInfo("com.example", 0)).thenReturn(info);
+
+        Resources res = mock(Resources.class);
+        when(res.getResourceName(1)).thenReturn("com.example:raw/font");
+        when(res.openRawResource(1)).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        Context context = mock(Context.class);
+        when(context.getResources()).thenReturn(res);
+        when(context.getCacheDir()).thenReturn(cacheDir);
+        when(context.getPackageName()).thenReturn("com.example");
+        when(context.getPackageManager()).thenReturn(packageManager);
+        return context;
+    }
+
+    /**
+     * A source creating a mock typeface, which counts its creations. Sources created from
+     * another source share its typeface and counter, like sources of the same font data.
+     */
+    private static final class CountingSource extends TypefaceManager.Source {
+        final Typeface typeface;
+        final AtomicInteger createCount;
+
+        CountingSource(String key) {
+            super(key);
+            typeface = mock(Typeface.class);
+            createCount = new AtomicInteger();
+        }
+
+        CountingSource(CountingSource source) {
+            super(source.key);
+            typeface = source.typeface;
+            createCount = source.createCount;
+        }
+
+        @Override
+        Typeface create() {
+            createCount.incrementAndGet();
+            // leave the other threads time to contend for the entry
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return typeface;
+        }
+    }
+
+}